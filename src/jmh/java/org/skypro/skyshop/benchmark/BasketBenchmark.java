@@ -0,0 +1,43 @@
+package org.skypro.skyshop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.skypro.skyshop.model.basket.ProductBasket;
+import org.skypro.skyshop.model.basket.UserBasket;
+import org.skypro.skyshop.service.BasketService;
+import org.skypro.skyshop.service.PricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.skypro.skyshop.service.StorageService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasketBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int basketSize;
+
+    private BasketService basketService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StorageService storageService = BenchmarkCatalog.storage(10000);
+        ProductBasket productBasket = new ProductBasket();
+        basketService = new BasketService(productBasket, storageService, new PricingService(storageService), new SimpleMeterRegistry());
+        for (int i = 0; i < basketSize; i++) {
+            UUID id = new UUID(0, i * 7L % 10000);
+            basketService.addProductToBasket(id);
+            basketService.addProductToBasket(id);
+        }
+    }
+
+    @Benchmark
+    public UserBasket getUserBasket() {
+        return basketService.getUserBasket();
+    }
+}
@@ -0,0 +1,27 @@
+package org.skypro.skyshop.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.skypro.skyshop.model.basket.ProductBasket;
+
+import java.util.UUID;
+
+// Объём кучи, который занимает корзина одной сессии:
+// mvn -Pbenchmark test-compile exec:exec -Djmh.main=org.skypro.skyshop.benchmark.BasketFootprint -Djmh.args=
+public final class BasketFootprint {
+
+    private BasketFootprint() {
+    }
+
+    public static void main(String[] args) {
+        for (int distinctItems : new int[]{0, 1, 10, 100}) {
+            ProductBasket basket = new ProductBasket();
+            for (int i = 0; i < distinctItems; i++) {
+                UUID id = UUID.randomUUID();
+                basket.addProduct(id, 1000);
+                basket.addProduct(id, 1000);
+            }
+            long bytes = GraphLayout.parseInstance(basket).totalSize();
+            System.out.println(distinctItems + " позиций: " + bytes + " байт");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.skypro.skyshop.benchmark;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.service.StorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkCatalog {
+    // Доля элементов каталога, в названии которых встречается слово.
+    // Слова латиницей, чтобы параметры JMH не зависели от кодировки консоли
+    static final String FREQUENT = "frequent";   // 1/2
+    static final String MEDIUM = "medium";       // 1/100
+    static final String RARE = "rare";           // 1/10000
+
+    private BenchmarkCatalog() {
+    }
+
+    static StorageService storage(int size) {
+        StorageService storageService = new StorageService();
+        for (Product product : products(size)) {
+            storageService.addProduct(product);
+        }
+        for (int i = 0; i < size / 10; i++) {
+            storageService.addArticle(new Article(
+                    new UUID(1, i),
+                    "Статья " + i + name(i),
+                    "Текст статьи номер " + i
+            ));
+        }
+        return storageService;
+    }
+
+    static List<Product> products(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(product(new UUID(0, i), i));
+        }
+        return products;
+    }
+
+    static Product product(UUID id, int i) {
+        String name = "Товар " + i + name(i);
+        return i % 5 == 0
+                ? new DiscountedProduct(id, name, 1000 + i % 1000, 10)
+                : new SimpleProduct(id, name, 1000 + i % 1000);
+    }
+
+    private static String name(int i) {
+        StringBuilder name = new StringBuilder();
+        if (i % 2 == 0) {
+            name.append(' ').append(FREQUENT);
+        }
+        if (i % 100 == 0) {
+            name.append(' ').append(MEDIUM);
+        }
+        if (i % 10000 == 0) {
+            name.append(' ').append(RARE);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package org.skypro.skyshop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.skypro.skyshop.model.search.SearchResult;
+import org.skypro.skyshop.service.SearchService;
+import org.skypro.skyshop.service.StorageService;
+import org.skypro.skyshop.service.search.ParallelSearch;
+import org.skypro.skyshop.service.search.SearchCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({BenchmarkCatalog.FREQUENT, BenchmarkCatalog.MEDIUM, BenchmarkCatalog.RARE})
+    private String pattern;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private SearchService searchService;
+    private ParallelSearch parallelSearch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StorageService storageService = BenchmarkCatalog.storage(catalogSize);
+        parallelSearch = new ParallelSearch(parallel, 1, 0);
+        // Кэш выключен: измеряется сам поиск, а не попадание в кэш
+        searchService = new SearchService(storageService, new SearchCache(0, Duration.ZERO), parallelSearch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelSearch.destroy();
+    }
+
+    @Benchmark
+    public Collection<SearchResult> search() {
+        return searchService.search(pattern);
+    }
+
+    @Benchmark
+    public List<SearchResult> searchTop20() {
+        return searchService.searchTop(pattern, 20);
+    }
+}
@@ -0,0 +1,79 @@
+package org.skypro.skyshop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.skypro.skyshop.controller.CatalogJsonCache;
+import org.skypro.skyshop.model.basket.ProductBasket;
+import org.skypro.skyshop.model.basket.UserBasket;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.search.SearchResult;
+import org.skypro.skyshop.service.BasketService;
+import org.skypro.skyshop.service.PricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.skypro.skyshop.service.StorageService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserBasket userBasket;
+    private List<SearchResult> searchResults;
+    private List<Product> products;
+    private CatalogJsonCache catalogJsonCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StorageService storageService = BenchmarkCatalog.storage(Math.max(size, 1000));
+        BasketService basketService = new BasketService(new ProductBasket(), storageService, new PricingService(storageService), new SimpleMeterRegistry());
+        for (int i = 0; i < size; i++) {
+            basketService.addProductToBasket(new UUID(0, i));
+        }
+        userBasket = basketService.getUserBasket();
+        searchResults = storageService.getAllProducts().stream()
+                .limit(size)
+                .map(SearchResult::fromSearchable)
+                .collect(Collectors.toList());
+        products = storageService.getAllProducts().stream()
+                .limit(size)
+                .collect(Collectors.toList());
+        catalogJsonCache = new CatalogJsonCache(objectMapper, storageService);
+    }
+
+    @Benchmark
+    public byte[] userBasket() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userBasket);
+    }
+
+    @Benchmark
+    public byte[] searchResults() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(searchResults);
+    }
+
+    @Benchmark
+    public byte[] productsReflective() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productsCached() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        catalogJsonCache.jsonArray(products).writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package org.skypro.skyshop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.service.StorageService;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private StorageService storageService;
+    private AtomicInteger nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storageService = BenchmarkCatalog.storage(catalogSize);
+        nextId = new AtomicInteger(catalogSize);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Product findById() {
+        long id = ThreadLocalRandom.current().nextInt(catalogSize);
+        return storageService.getProductById(new UUID(0, id));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Product addProduct() {
+        int i = nextId.getAndIncrement();
+        return storageService.addProduct(BenchmarkCatalog.product(new UUID(2, i), i));
+    }
+
+    @Benchmark
+    @Group("snapshotUnderWrites")
+    @GroupThreads(3)
+    public Collection<Product> getAllProducts() {
+        return storageService.getAllProducts();
+    }
+
+    @Benchmark
+    @Group("snapshotUnderWrites")
+    @GroupThreads(1)
+    public Product addProductWhileReading() {
+        int i = nextId.getAndIncrement();
+        return storageService.addProduct(BenchmarkCatalog.product(new UUID(3, i), i));
+    }
+
+    // Записи разных товаров идут по разным полосам и сходятся только
+    // на короткой публикации версии
+    @Benchmark
+    @Group("parallelWrites")
+    @GroupThreads(4)
+    public Product addProductConcurrently() {
+        int i = nextId.getAndIncrement();
+        return storageService.addProduct(BenchmarkCatalog.product(new UUID(4, i), i));
+    }
+}
@@ -0,0 +1,119 @@
+package org.skypro.skyshop.controller;
+
+import org.skypro.skyshop.exception.ChangeFeedGapException;
+import org.skypro.skyshop.model.catalog.CatalogChangeEvent;
+import org.skypro.skyshop.service.CatalogChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+// Подписчик ленты изменений, пересылающий события в Server-Sent Events.
+// id события - эпоха ленты и номер события, поэтому браузер при
+// переподключении сам пришлёт Last-Event-ID и продолжит с того же места.
+// Если продолжить нельзя, в том числе после перезапуска приложения,
+// клиент получает событие RESET и должен заново загрузить каталог
+final class CatalogChangeStream implements Flow.Subscriber<CatalogChangeEvent> {
+    // После таймаута клиент переподключается с Last-Event-ID, поэтому
+    // соединения от исчезнувших клиентов не живут бесконечно
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final String RESET_EVENT = "RESET";
+
+    private final SseEmitter emitter;
+    private final String epoch;
+    private volatile Flow.Subscription subscription;
+    private volatile boolean closed;
+
+    private CatalogChangeStream(String epoch) {
+        this.emitter = new SseEmitter(TIMEOUT_MILLIS);
+        this.epoch = epoch;
+    }
+
+    static SseEmitter open(CatalogChangeFeed changeFeed, long afterSequence) {
+        return open(changeFeed, changeFeed.getEpoch(), afterSequence);
+    }
+
+    // Last-Event-ID вида "<эпоха>-<номер>". Нераспознанный идентификатор
+    // считается чужой эпохой, и клиент получает RESET
+    static SseEmitter resume(CatalogChangeFeed changeFeed, String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator > 0) {
+            try {
+                long afterSequence = Long.parseLong(lastEventId.substring(separator + 1));
+                return open(changeFeed, lastEventId.substring(0, separator), afterSequence);
+            } catch (NumberFormatException e) {
+                // Падаем в RESET ниже
+            }
+        }
+        return open(changeFeed, lastEventId, changeFeed.getLastSequence());
+    }
+
+    static String eventId(String epoch, long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private static SseEmitter open(CatalogChangeFeed changeFeed, String epoch, long afterSequence) {
+        CatalogChangeStream stream = new CatalogChangeStream(changeFeed.getEpoch());
+        stream.emitter.onCompletion(stream::close);
+        stream.emitter.onTimeout(stream.emitter::complete);
+        stream.emitter.onError(error -> stream.close());
+        changeFeed.subscribe(stream, epoch, afterSequence);
+        return stream.emitter;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(1);
+    }
+
+    // Отправка блокирует поток доставки, пока клиент не примет событие,
+    // а следующее событие запрашивается только после этого
+    @Override
+    public void onNext(CatalogChangeEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(eventId(epoch, event.getSequence()))
+                    .name(event.getType().name())
+                    .data(event, MediaType.APPLICATION_JSON));
+            subscription.request(1);
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился или поток уже завершён
+            close();
+            emitter.completeWithError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        if (!(error instanceof ChangeFeedGapException)) {
+            emitter.completeWithError(error);
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(RESET_EVENT).data(error.getMessage()));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        emitter.complete();
+    }
+
+    private void close() {
+        closed = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.skypro.skyshop.controller;
+
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.service.pricing.PriceTable;
+
+// Валидаторы для условных запросов к каталогу. Берутся из того же снимка,
+// из которого строится ответ, поэтому ETag всегда соответствует данным.
+// Каталог в памяти после перезапуска снова начинает версии с нуля, поэтому
+// в ETag входит ещё и момент запуска приложения
+final class CatalogETags {
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private CatalogETags() {
+    }
+
+    static String of(CatalogSnapshot snapshot) {
+        return "\"" + BOOT_ID + "-" + snapshot.getVersion() + "\"";
+    }
+
+    // Цены по акциям меняются и без изменения каталога. Таблица цен однозначно
+    // определяется эпохой и сроком действия: при пересборке по времени срок растёт
+    static String of(CatalogSnapshot snapshot, PriceTable priceTable) {
+        return "\"" + BOOT_ID + "-" + snapshot.getVersion()
+                + "-" + priceTable.getEpoch()
+                + "-" + Long.toString(priceTable.getValidUntilMillis(), 36) + "\"";
+    }
+
+    static long lastModified(CatalogSnapshot snapshot) {
+        return snapshot.getLastModified().toEpochMilli();
+    }
+
+    static long lastModified(CatalogSnapshot snapshot, PriceTable priceTable) {
+        return Math.max(lastModified(snapshot), priceTable.getBuiltAtMillis());
+    }
+}
@@ -0,0 +1,97 @@
+package org.skypro.skyshop.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.CatalogChangeListener;
+import org.skypro.skyshop.service.StorageService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Товары и статьи неизменяемы, поэтому их JSON достаточно построить один раз.
+// Запись в кэше привязана к конкретному объекту: если в каталоге появилась
+// новая версия с тем же ID, старые байты не подойдут и JSON построится заново
+@Component
+public class CatalogJsonCache implements CatalogChangeListener {
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final ObjectMapper objectMapper;
+    private final StorageService storageService;
+    private final Map<UUID, CachedJson> entries;
+
+    public CatalogJsonCache(ObjectMapper objectMapper, StorageService storageService) {
+        this.objectMapper = objectMapper;
+        this.storageService = storageService;
+        this.entries = new ConcurrentHashMap<>();
+        storageService.addChangeListener(this);
+    }
+
+    public byte[] toJson(Searchable entity) {
+        CachedJson cached = entries.get(entity.getId());
+        if (cached != null && cached.entity == entity) {
+            return cached.json;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(entity);
+            // Пока шла сериализация, элемент могли заменить или удалить, и
+            // слушатель уже отработал: такие байты в кэш класть нельзя, иначе
+            // они останутся в нём навсегда. Проверка идёт под блокировкой
+            // ключа, общей со слушателем, поэтому одно из двух всегда видит
+            // результат другого
+            entries.compute(entity.getId(), (id, existing) ->
+                    storageService.isCurrent(entity) ? new CachedJson(entity, json) : existing);
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // JSON-массив собирается из готовых байтов элементов без повторной сериализации
+    public StreamingResponseBody jsonArray(Collection<? extends Searchable> items) {
+        return outputStream -> {
+            if (items.isEmpty()) {
+                outputStream.write(EMPTY_ARRAY);
+                return;
+            }
+            char separator = '[';
+            for (Searchable item : items) {
+                outputStream.write(separator);
+                outputStream.write(toJson(item));
+                separator = ',';
+            }
+            outputStream.write(']');
+        };
+    }
+
+    public StreamingResponseBody ndjson(Collection<? extends Searchable> items) {
+        return outputStream -> {
+            for (Searchable item : items) {
+                outputStream.write(toJson(item));
+                outputStream.write('\n');
+            }
+        };
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Заменённые и удалённые элементы сразу освобождают память. Новый JSON
+    // не строится здесь, чтобы не сериализовать под блокировкой записи каталога
+    @Override
+    public void onSearchableChanged(Searchable previous, Searchable current) {
+        if (previous != null) {
+            entries.computeIfPresent(previous.getId(),
+                    (id, cached) -> cached.entity == previous ? null : cached);
+        }
+    }
+
+    private record CachedJson(Searchable entity, byte[] json) {
+    }
+}
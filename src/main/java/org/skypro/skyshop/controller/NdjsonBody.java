@@ -0,0 +1,41 @@
+package org.skypro.skyshop.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+final class NdjsonBody {
+    // Сколько строк уходит клиенту одним куском
+    static final int FLUSH_EVERY = 256;
+
+    private NdjsonBody() {
+    }
+
+    // Каждый элемент сериализуется сразу в выходной поток отдельной строкой,
+    // поэтому ни список результатов, ни JSON-массив целиком в памяти не строятся.
+    // Сброс после каждого объекта отключён: иначе каждая строка уходила бы
+    // отдельным куском ответа
+    static <T> StreamingResponseBody of(ObjectMapper objectMapper, Stream<T> items) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return outputStream -> {
+            try (items; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                Iterator<T> iterator = items.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -1,19 +1,39 @@
 package org.skypro.skyshop.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.CatalogPage;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.catalog.ImportReport;
+import org.skypro.skyshop.model.pricing.Promotion;
 import org.skypro.skyshop.model.product.Product;
 import org.skypro.skyshop.model.product.SimpleProduct;
 import org.skypro.skyshop.model.search.SearchResult;
+import org.skypro.skyshop.service.CatalogChangeFeed;
+import org.skypro.skyshop.service.CatalogImportService;
+import org.skypro.skyshop.service.PricingService;
 import org.skypro.skyshop.service.SearchService;
 import org.skypro.skyshop.service.StorageService;
+import org.skypro.skyshop.service.pricing.PriceTable;
+import org.skypro.skyshop.service.search.SearchCacheStats;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.skypro.skyshop.model.basket.BasketOperation;
+import org.skypro.skyshop.model.basket.BasketSummary;
 import org.skypro.skyshop.model.basket.UserBasket;
 import org.skypro.skyshop.service.BasketService;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api")
@@ -21,27 +41,83 @@ public class ShopController {
     private final StorageService storageService;
     private final SearchService searchService;
     private final BasketService basketService;
+    private final PricingService pricingService;
+    private final CatalogImportService catalogImportService;
+    private final CatalogJsonCache catalogJsonCache;
+    private final ObjectMapper objectMapper;
 
     public ShopController(StorageService storageService,
                           SearchService searchService,
-                          BasketService basketService) {
+                          BasketService basketService,
+                          PricingService pricingService,
+                          CatalogImportService catalogImportService,
+                          CatalogJsonCache catalogJsonCache,
+                          ObjectMapper objectMapper) {
         this.storageService = storageService;
         this.searchService = searchService;
         this.basketService = basketService;
+        this.pricingService = pricingService;
+        this.catalogImportService = catalogImportService;
+        this.catalogJsonCache = catalogJsonCache;
+        this.objectMapper = objectMapper;
     }
 
+    // /products во всех вариантах отдаёт товары как есть, с ценой из каталога
+    // без учёта акций: JSON товара кэшируется по самому объекту, а ETag зависит
+    // только от версии каталога. Цены с учётом акций отдаёт /products/details.
+    // Повторный запрос с актуальным ETag получает 304 без чтения и
+    // сериализации каталога
     @GetMapping("/products")
-    public Collection<Product> getAllProducts() {
-        return storageService.getAllProducts();
+    public ResponseEntity<StreamingResponseBody> getAllProducts(WebRequest request) {
+        CatalogSnapshot snapshot = storageService.getCatalogSnapshot();
+        if (request.checkNotModified(CatalogETags.of(snapshot), CatalogETags.lastModified(snapshot))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogJsonCache.jsonArray(snapshot.getProducts()));
+    }
+
+    @GetMapping(value = "/products", params = "limit")
+    public CatalogPage<Product> getProductPage(@RequestParam int limit,
+                                               @RequestParam(required = false) UUID cursor) {
+        return storageService.getProductPage(cursor, limit);
+    }
+
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(catalogJsonCache.ndjson(storageService.getAllProducts()));
     }
 
     @GetMapping("/products/details")
-    public List<ProductInfo> getAllProductsDetails() {
-        return storageService.getAllProducts().stream()
-                .map(p -> new ProductInfo(p.getId().toString(), p.getName(), p.getPrice()))
+    public List<ProductInfo> getAllProductsDetails(WebRequest request) {
+        CatalogSnapshot snapshot = storageService.getCatalogSnapshot();
+        PriceTable priceTable = pricingService.getPriceTable();
+        if (request.checkNotModified(CatalogETags.of(snapshot, priceTable), CatalogETags.lastModified(snapshot, priceTable))) {
+            return null;
+        }
+        return snapshot.getProducts().stream()
+                .map(product -> ProductInfo.fromProduct(product, priceTable))
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(value = "/products/details", params = "limit")
+    public CatalogPage<ProductInfo> getProductDetailsPage(@RequestParam int limit,
+                                                          @RequestParam(required = false) UUID cursor) {
+        PriceTable priceTable = pricingService.getPriceTable();
+        return storageService.getProductPage(cursor, limit)
+                .map(product -> ProductInfo.fromProduct(product, priceTable));
+    }
+
+    @GetMapping(value = "/products/details", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProductsDetails() {
+        PriceTable priceTable = pricingService.getPriceTable();
+        return ndjson(storageService.getAllProducts().stream()
+                .map(product -> ProductInfo.fromProduct(product, priceTable)));
+    }
+
     @PostMapping("/products")
     public Product createProduct(@RequestBody CreateProductRequest request) {
         // Валидация
@@ -60,9 +136,67 @@ public class ShopController {
         return storageService.addProduct(product);
     }
 
+    @DeleteMapping("/products/{id}")
+    public String removeProduct(@PathVariable("id") UUID id) {
+        storageService.removeProduct(id);
+        return "Продукт удалён";
+    }
+
+    // Тело не буферизуется: сервис читает поток построчно
+    @PostMapping(value = "/products/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importProductsNdjson(InputStream body) throws IOException {
+        return catalogImportService.importNdjson(body);
+    }
+
+    @PostMapping(value = "/products/import", consumes = "text/csv")
+    public ImportReport importProductsCsv(InputStream body) throws IOException {
+        return catalogImportService.importCsv(body);
+    }
+
     @GetMapping("/articles")
-    public Collection<Article> getAllArticles() {
-        return storageService.getAllArticles();
+    public ResponseEntity<StreamingResponseBody> getAllArticles(WebRequest request) {
+        CatalogSnapshot snapshot = storageService.getCatalogSnapshot();
+        if (request.checkNotModified(CatalogETags.of(snapshot), CatalogETags.lastModified(snapshot))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogJsonCache.jsonArray(snapshot.getArticles()));
+    }
+
+    @GetMapping(value = "/articles", params = "limit")
+    public CatalogPage<Article> getArticlePage(@RequestParam int limit,
+                                               @RequestParam(required = false) UUID cursor) {
+        return storageService.getArticlePage(cursor, limit);
+    }
+
+    // Без since отдаются только изменения после подключения. Заголовок
+    // Last-Event-ID присылает браузер при переподключении, он важнее since
+    // и вместе с номером несёт эпоху ленты, чтобы не продолжить чужую нумерацию
+    @GetMapping(value = "/catalog/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCatalogChanges(@RequestParam(required = false) Long since,
+                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        CatalogChangeFeed changeFeed = storageService.getChangeFeed();
+        if (lastEventId != null) {
+            return CatalogChangeStream.resume(changeFeed, lastEventId);
+        }
+        return CatalogChangeStream.open(changeFeed, since != null ? since : changeFeed.getLastSequence());
+    }
+
+    @GetMapping("/promotions")
+    public Collection<Promotion> getPromotions() {
+        return pricingService.getPromotions();
+    }
+
+    @PostMapping("/promotions")
+    public Promotion createPromotion(@RequestBody Promotion promotion) {
+        return pricingService.addPromotion(promotion);
+    }
+
+    @DeleteMapping("/promotions/{id}")
+    public String removePromotion(@PathVariable("id") UUID id) {
+        pricingService.removePromotion(id);
+        return "Акция удалена";
     }
 
     @GetMapping("/search")
@@ -70,6 +204,29 @@ public class ShopController {
         return searchService.search(pattern);
     }
 
+    @GetMapping(value = "/search", params = "limit")
+    public CatalogPage<SearchResult> searchPage(@RequestParam String pattern,
+                                                @RequestParam int limit,
+                                                @RequestParam(required = false) UUID cursor) {
+        return searchService.searchPage(pattern, cursor, limit);
+    }
+
+    @GetMapping(value = "/search", params = "top")
+    public List<SearchResult> searchTop(@RequestParam String pattern,
+                                        @RequestParam int top) {
+        return searchService.searchTop(pattern, top);
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearch(@RequestParam String pattern) {
+        return ndjson(searchService.searchStream(pattern));
+    }
+
+    @GetMapping("/search/cache/stats")
+    public SearchCacheStats getSearchCacheStats() {
+        return searchService.getCacheStats();
+    }
+
     @GetMapping("/basket/{id}")
     public String addProductToBasket(@PathVariable("id") String idString) {
         try {
@@ -81,17 +238,39 @@ public class ShopController {
         }
     }
 
+    @DeleteMapping("/basket/{id}")
+    public String removeProductFromBasket(@PathVariable("id") UUID id) {
+        basketService.removeProductFromBasket(id);
+        return "Продукт удалён из корзины";
+    }
+
+    @PostMapping("/basket/bulk")
+    public BasketSummary applyBasketOperations(@RequestBody List<BasketOperation> operations) {
+        return basketService.applyBulk(operations);
+    }
+
     @GetMapping("/basket")
     public UserBasket getUserBasket() {
         return basketService.getUserBasket();
     }
 
+    @GetMapping("/basket/summary")
+    public BasketSummary getBasketSummary() {
+        return basketService.getBasketSummary();
+    }
+
     @GetMapping("/basket/clear")
     public String clearBasket() {
         basketService.clearBasket();
         return "Корзина очищена";
     }
 
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<?> items) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonBody.of(objectMapper, items));
+    }
+
     public static class ProductInfo {
         private final String id;
         private final String name;
@@ -103,6 +282,11 @@ public class ShopController {
             this.price = price;
         }
 
+        // Цена с учётом действующих акций
+        public static ProductInfo fromProduct(Product product, PriceTable priceTable) {
+            return new ProductInfo(product.getId().toString(), product.getName(), priceTable.priceOf(product));
+        }
+
         public String getId() { return id; }
         public String getName() { return name; }
         public int getPrice() { return price; }
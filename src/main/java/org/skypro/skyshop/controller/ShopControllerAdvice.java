@@ -1,6 +1,7 @@
 package org.skypro.skyshop.controller;
 
 import org.skypro.skyshop.exception.NoSuchProductException;
+import org.skypro.skyshop.exception.NoSuchPromotionException;
 import org.skypro.skyshop.model.ShopError;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +23,17 @@ public class ShopControllerAdvice {
                 .body(error);
     }
 
+    @ExceptionHandler(NoSuchPromotionException.class)
+    public ResponseEntity<ShopError> handleNoSuchPromotionException(NoSuchPromotionException e) {
+        ShopError error = new ShopError(
+                "PROMOTION_NOT_FOUND",
+                e.getMessage()
+        );
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ShopError> handleIllegalArgumentException(IllegalArgumentException e) {
         ShopError error = new ShopError(
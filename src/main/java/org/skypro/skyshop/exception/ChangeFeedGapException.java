@@ -0,0 +1,8 @@
+package org.skypro.skyshop.exception;
+
+// Нужных изменений в ленте уже нет: потребитель должен заново прочитать каталог целиком
+public class ChangeFeedGapException extends RuntimeException {
+    public ChangeFeedGapException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.skypro.skyshop.exception;
+
+public class NoSuchPromotionException extends RuntimeException {
+    public NoSuchPromotionException(String message) {
+        super(message);
+    }
+}
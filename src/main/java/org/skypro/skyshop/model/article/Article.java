@@ -1,6 +1,7 @@
 package org.skypro.skyshop.model.article;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.skypro.skyshop.model.search.SearchKey;
 import org.skypro.skyshop.model.search.Searchable;
 
 import java.util.Objects;
@@ -10,11 +11,13 @@ public class Article implements Searchable {
     private final UUID id;
     private final String title;
     private final String text;
+    private final SearchKey searchKey;
 
     public Article(UUID id, String title, String text) {
         this.id = id;
         this.title = title;
         this.text = text;
+        this.searchKey = SearchKey.of(title, text);
     }
 
     @Override
@@ -41,6 +44,12 @@ public class Article implements Searchable {
         return title + text;
     }
 
+    @Override
+    @JsonIgnore
+    public SearchKey getSearchKey() {
+        return searchKey;
+    }
+
     @Override
     @JsonIgnore  // <-- ДОБАВЛЯЕМ ЗДЕСЬ
     public String getContentType() {
@@ -7,10 +7,17 @@ import java.util.Objects;
 public class BasketItem {
     private final Product product;
     private final int quantity;
+    private final int unitPrice;
 
     public BasketItem(Product product, int quantity) {
+        this(product, quantity, product.getPrice());
+    }
+
+    // unitPrice - цена с учётом действующих акций
+    public BasketItem(Product product, int quantity, int unitPrice) {
         this.product = product;
         this.quantity = quantity;
+        this.unitPrice = unitPrice;
     }
 
     public Product getProduct() {
@@ -21,8 +28,12 @@ public class BasketItem {
         return quantity;
     }
 
-    public int getTotalPrice() {
-        return product.getPrice() * quantity;
+    public int getUnitPrice() {
+        return unitPrice;
+    }
+
+    public long getTotalPrice() {
+        return (long) unitPrice * quantity;
     }
 
     @Override
@@ -30,7 +41,7 @@ public class BasketItem {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BasketItem that = (BasketItem) o;
-        return quantity == that.quantity && Objects.equals(product, that.product);
+        return quantity == that.quantity && unitPrice == that.unitPrice && Objects.equals(product, that.product);
     }
 
     @Override
@@ -0,0 +1,40 @@
+package org.skypro.skyshop.model.basket;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+public class BasketOperation {
+    private final UUID productId;
+    private final Type op;
+    private final int quantity;
+
+    @JsonCreator
+    public BasketOperation(@JsonProperty("productId") UUID productId,
+                           @JsonProperty("op") Type op,
+                           @JsonProperty("quantity") Integer quantity) {
+        this.productId = productId;
+        this.op = op;
+        // Для добавления и удаления количество по умолчанию - одна штука
+        this.quantity = quantity == null ? 1 : quantity;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public Type getOp() {
+        return op;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        SET
+    }
+}
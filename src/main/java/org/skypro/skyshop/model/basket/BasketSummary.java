@@ -0,0 +1,25 @@
+package org.skypro.skyshop.model.basket;
+
+public class BasketSummary {
+    private final long itemsCount;
+    private final int distinctItemsCount;
+    private final long total;
+
+    public BasketSummary(long itemsCount, int distinctItemsCount, long total) {
+        this.itemsCount = itemsCount;
+        this.distinctItemsCount = distinctItemsCount;
+        this.total = total;
+    }
+
+    public long getItemsCount() {
+        return itemsCount;
+    }
+
+    public int getDistinctItemsCount() {
+        return distinctItemsCount;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,244 @@
+package org.skypro.skyshop.model.basket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Корзина на примитивных массивах с открытой адресацией: UUID хранится как
+// две long-половины, количество и цена - как int. Слот свободен, если его
+// количество равно 0. Массивы создаются только при первом добавлении, поэтому
+// пустая корзина неактивной сессии почти не занимает памяти
+public final class BasketTable {
+    // Ограничение на одну позицию: сумма позиции (int-цена * количество)
+    // всегда помещается в long, а ошибочный SET не создаёт абсурдных корзин
+    public static final int MAX_QUANTITY = 10_000;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private int[] quantities;
+    private int[] unitPrices;
+    private int size;
+    private long totalQuantity;
+    private long priceTotal;
+
+    public int add(UUID productId, int unitPrice) {
+        return add(productId.getMostSignificantBits(), productId.getLeastSignificantBits(), unitPrice, 1);
+    }
+
+    public int add(long msb, long lsb, int unitPrice, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Количество должно быть больше 0, получено: " + quantity);
+        }
+        if (quantities == null) {
+            allocate(INITIAL_CAPACITY);
+        } else if ((size + 1) * 2 > quantities.length) {
+            rehash(quantities.length * 2);
+        }
+
+        int slot = find(msb, lsb);
+        checkQuantity((long) quantities[slot] + quantity);
+        if (quantities[slot] == 0) {
+            mostSignificantBits[slot] = msb;
+            leastSignificantBits[slot] = lsb;
+            size++;
+        } else {
+            priceTotal -= (long) unitPrices[slot] * quantities[slot];
+        }
+        quantities[slot] += quantity;
+        unitPrices[slot] = unitPrice;
+        priceTotal += (long) unitPrice * quantities[slot];
+        totalQuantity += quantity;
+        return quantities[slot];
+    }
+
+    public boolean removeOne(UUID productId) {
+        if (quantities == null) {
+            return false;
+        }
+        int slot = find(productId.getMostSignificantBits(), productId.getLeastSignificantBits());
+        if (quantities[slot] == 0) {
+            return false;
+        }
+        priceTotal -= unitPrices[slot];
+        totalQuantity--;
+        if (--quantities[slot] == 0) {
+            size--;
+            shiftBack(slot);
+        }
+        return true;
+    }
+
+    // Устанавливает итоговое количество позиции, 0 удаляет её из корзины
+    public void set(UUID productId, int unitPrice, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Количество не может быть отрицательным, получено: " + quantity);
+        }
+        checkQuantity(quantity);
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        int current = quantities == null ? 0 : quantities[find(msb, lsb)];
+        if (quantity > current) {
+            add(msb, lsb, unitPrice, quantity - current);
+            return;
+        }
+        if (current == 0) {
+            return;
+        }
+        int slot = find(msb, lsb);
+        priceTotal -= (long) unitPrices[slot] * current;
+        totalQuantity -= current - quantity;
+        if (quantity == 0) {
+            quantities[slot] = 0;
+            size--;
+            shiftBack(slot);
+        } else {
+            quantities[slot] = quantity;
+            unitPrices[slot] = unitPrice;
+            priceTotal += (long) unitPrice * quantity;
+        }
+    }
+
+    public int quantity(UUID productId) {
+        if (quantities == null) {
+            return 0;
+        }
+        return quantities[find(productId.getMostSignificantBits(), productId.getLeastSignificantBits())];
+    }
+
+    public int unitPrice(UUID productId) {
+        if (quantities == null) {
+            return 0;
+        }
+        return unitPrices[find(productId.getMostSignificantBits(), productId.getLeastSignificantBits())];
+    }
+
+    public void clear() {
+        mostSignificantBits = null;
+        leastSignificantBits = null;
+        quantities = null;
+        unitPrices = null;
+        size = 0;
+        totalQuantity = 0;
+        priceTotal = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long totalQuantity() {
+        return totalQuantity;
+    }
+
+    public long priceTotal() {
+        return priceTotal;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (quantities == null) {
+            return;
+        }
+        for (int slot = 0; slot < quantities.length; slot++) {
+            if (quantities[slot] != 0) {
+                consumer.accept(mostSignificantBits[slot], leastSignificantBits[slot], quantities[slot], unitPrices[slot]);
+            }
+        }
+    }
+
+    // Независимая копия для обхода без блокировки корзины
+    public BasketTable copy() {
+        BasketTable copy = new BasketTable();
+        if (quantities != null) {
+            copy.mostSignificantBits = mostSignificantBits.clone();
+            copy.leastSignificantBits = leastSignificantBits.clone();
+            copy.quantities = quantities.clone();
+            copy.unitPrices = unitPrices.clone();
+        }
+        copy.size = size;
+        copy.totalQuantity = totalQuantity;
+        copy.priceTotal = priceTotal;
+        return copy;
+    }
+
+    public Map<UUID, Integer> toMap() {
+        Map<UUID, Integer> map = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        forEach((msb, lsb, quantity, unitPrice) -> map.put(new UUID(msb, lsb), quantity));
+        return map;
+    }
+
+    private static void checkQuantity(long quantity) {
+        if (quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Не больше " + MAX_QUANTITY + " шт. одного продукта, получено: " + quantity);
+        }
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = quantities.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (quantities[slot] != 0
+                && (mostSignificantBits[slot] != msb || leastSignificantBits[slot] != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Удаление без надгробий: элементы той же цепочки сдвигаются на
+    // освободившееся место, если их исходный слот не лежит между ним и ними
+    private void shiftBack(int freed) {
+        int mask = quantities.length - 1;
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (quantities[slot] == 0) {
+                break;
+            }
+            int home = hash(mostSignificantBits[slot], leastSignificantBits[slot]) & mask;
+            boolean canMove = freed <= slot
+                    ? home <= freed || home > slot
+                    : home <= freed && home > slot;
+            if (canMove) {
+                mostSignificantBits[freed] = mostSignificantBits[slot];
+                leastSignificantBits[freed] = leastSignificantBits[slot];
+                quantities[freed] = quantities[slot];
+                unitPrices[freed] = unitPrices[slot];
+                quantities[slot] = 0;
+                freed = slot;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        quantities = new int[capacity];
+        unitPrices = new int[capacity];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMsb = mostSignificantBits;
+        long[] oldLsb = leastSignificantBits;
+        int[] oldQuantities = quantities;
+        int[] oldPrices = unitPrices;
+        allocate(capacity);
+        for (int i = 0; i < oldQuantities.length; i++) {
+            if (oldQuantities[i] != 0) {
+                int slot = find(oldMsb[i], oldLsb[i]);
+                mostSignificantBits[slot] = oldMsb[i];
+                leastSignificantBits[slot] = oldLsb[i];
+                quantities[slot] = oldQuantities[i];
+                unitPrices[slot] = oldPrices[i];
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long mixed = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long msb, long lsb, int quantity, int unitPrice);
+    }
+}
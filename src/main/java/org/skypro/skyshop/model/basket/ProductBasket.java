@@ -1,43 +1,142 @@
 package org.skypro.skyshop.model.basket;
 
+import jakarta.annotation.PreDestroy;
+import org.skypro.skyshop.storage.BasketStore;
+import org.skypro.skyshop.storage.InMemoryBasketStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 @Component
 @Scope(value = WebApplicationContext.SCOPE_SESSION,proxyMode = ScopedProxyMode.TARGET_CLASS)
 public class ProductBasket {
-    private final Map<UUID, Integer> basketItems;
+    // Бин сессии хранит только ключ: сама корзина живёт в BasketStore и может
+    // быть выгружена из памяти, пока пользователь неактивен
+    private final BasketStore basketStore;
+    private final String basketKey;
 
     public ProductBasket() {
-        this.basketItems = new HashMap<>();
+        this(new InMemoryBasketStore(), "local");
     }
 
-    public void addProduct(UUID productId) {
-        basketItems.merge(productId, 1, Integer::sum);
+    @Autowired
+    public ProductBasket(BasketStore basketStore) {
+        this(basketStore, RequestContextHolder.currentRequestAttributes().getSessionId());
+    }
+
+    public ProductBasket(BasketStore basketStore, String basketKey) {
+        this.basketStore = basketStore;
+        this.basketKey = basketKey;
+    }
+
+    // Сессия завершилась: корзина больше никому не нужна ни в памяти, ни на диске
+    @PreDestroy
+    public void destroy() {
+        basketStore.remove(basketKey);
+    }
+
+    public void addProduct(UUID productId, int unitPrice) {
+        basketStore.withBasket(basketKey, basketItems -> basketItems.add(productId, unitPrice));
+    }
+
+    public boolean removeProduct(UUID productId) {
+        return basketStore.withBasket(basketKey, basketItems -> basketItems.removeOne(productId));
+    }
+
+    // Применяет все операции под одной блокировкой корзины: либо все, либо
+    // ни одной. Итоговые количества сначала считаются целиком, и только
+    // потом записываются в таблицу. unitPrices - текущие цены из каталога,
+    // они обязательны для всех товаров, которые добавляются или устанавливаются
+    public BasketSummary applyOperations(List<BasketOperation> operations, Map<UUID, Integer> unitPrices) {
+        return basketStore.withBasket(basketKey, basketItems -> {
+            Map<UUID, Integer> targetQuantities = new LinkedHashMap<>();
+            for (BasketOperation operation : operations) {
+                UUID productId = operation.getProductId();
+                if (operation.getOp() != BasketOperation.Type.REMOVE && !unitPrices.containsKey(productId)) {
+                    throw new IllegalArgumentException("Не передана цена продукта " + productId);
+                }
+                int current = targetQuantities.getOrDefault(productId, basketItems.quantity(productId));
+                targetQuantities.put(productId, switch (operation.getOp()) {
+                    case ADD -> {
+                        if (current > BasketTable.MAX_QUANTITY - operation.getQuantity()) {
+                            throw new IllegalArgumentException("Не больше " + BasketTable.MAX_QUANTITY
+                                    + " шт. продукта " + productId);
+                        }
+                        yield current + operation.getQuantity();
+                    }
+                    case SET -> {
+                        if (operation.getQuantity() > BasketTable.MAX_QUANTITY) {
+                            throw new IllegalArgumentException("Не больше " + BasketTable.MAX_QUANTITY
+                                    + " шт. продукта " + productId);
+                        }
+                        yield operation.getQuantity();
+                    }
+                    case REMOVE -> {
+                        if (operation.getQuantity() > current) {
+                            throw new IllegalArgumentException("В корзине " + current + " шт. продукта " + productId
+                                    + ", нельзя удалить " + operation.getQuantity());
+                        }
+                        yield current - operation.getQuantity();
+                    }
+                });
+            }
+
+            // Без цены остаются только товары, у которых было лишь удаление:
+            // количество не растёт, и сохраняется цена, по которой их добавили
+            targetQuantities.forEach((productId, quantity) ->
+                    basketItems.set(productId, unitPrices.getOrDefault(productId, basketItems.unitPrice(productId)), quantity));
+            return new BasketSummary(basketItems.totalQuantity(), basketItems.size(), basketItems.priceTotal());
+        });
     }
 
     public Map<UUID, Integer> getAllProducts() {
-        return Collections.unmodifiableMap(basketItems);
+        return Collections.unmodifiableMap(basketStore.withBasket(basketKey, BasketTable::toMap));
+    }
+
+    // Обход выполняется под блокировкой корзины: consumer не должен
+    // обращаться к этой же корзине и выполнять долгие операции
+    public void forEachProduct(BasketTable.EntryConsumer consumer) {
+        basketStore.withBasket(basketKey, basketItems -> {
+            basketItems.forEach(consumer);
+            return null;
+        });
     }
 
     public void clearBasket() {
-        basketItems.clear();
+        basketStore.withBasket(basketKey, basketItems -> {
+            basketItems.clear();
+            return null;
+        });
+    }
+
+    public long getTotalItemCount() {
+        return basketStore.withBasket(basketKey, BasketTable::totalQuantity);
+    }
+
+    // Копия корзины вместе с ценами позиций: обход идёт уже без блокировки
+    public BasketTable snapshot() {
+        return basketStore.withBasket(basketKey, BasketTable::copy);
     }
 
-    public int getTotalItemCount() {
-        return basketItems.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+    // Счётчики ведутся при каждом изменении, поэтому сводка не обходит корзину
+    public BasketSummary getSummary() {
+        return basketStore.withBasket(basketKey, basketItems -> new BasketSummary(
+                basketItems.totalQuantity(),
+                basketItems.size(),
+                basketItems.priceTotal()
+        ));
     }
 
     public int getProductQuantity(UUID productId) {
-        return basketItems.getOrDefault(productId, 0);
+        return basketStore.withBasket(basketKey, basketItems -> basketItems.quantity(productId));
     }
 }
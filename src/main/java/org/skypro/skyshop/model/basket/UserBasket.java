@@ -5,16 +5,28 @@ import java.util.List;
 
 public class UserBasket {
     private final List<BasketItem> items;
-    private final int total;
+    private final long total;
+    private final long itemsCount;
 
     public UserBasket(List<BasketItem> items) {
+        this(items, calculateTotal(items), calculateItemsCount(items));
+    }
+
+    public UserBasket(List<BasketItem> items, long total, long itemsCount) {
         this.items = Collections.unmodifiableList(items);
-        this.total = calculateTotal();
+        this.total = total;
+        this.itemsCount = itemsCount;
+    }
+
+    private static long calculateTotal(List<BasketItem> items) {
+        return items.stream()
+                .mapToLong(BasketItem::getTotalPrice)
+                .sum();
     }
 
-    private int calculateTotal() {
+    private static long calculateItemsCount(List<BasketItem> items) {
         return items.stream()
-                .mapToInt(BasketItem::getTotalPrice)
+                .mapToLong(BasketItem::getQuantity)
                 .sum();
     }
 
@@ -22,13 +34,11 @@ public class UserBasket {
         return items;
     }
 
-    public int getTotal() {
+    public long getTotal() {
         return total;
     }
 
-    public int getItemsCount() {
-        return items.stream()
-                .mapToInt(BasketItem::getQuantity)
-                .sum();
+    public long getItemsCount() {
+        return itemsCount;
     }
 }
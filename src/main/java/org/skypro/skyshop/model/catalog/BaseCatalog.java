@@ -0,0 +1,16 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.search.Searchable;
+
+// Базовый слой каталога только для чтения. Каталог в памяти лежит поверх
+// него: элемент в памяти с тем же ID перекрывает элемент слоя
+public interface BaseCatalog {
+
+    CatalogLayer<Product> products();
+
+    CatalogLayer<Article> articles();
+
+    CatalogLayer<Searchable> searchables();
+}
@@ -0,0 +1,63 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class CatalogChangeEvent {
+    private final long sequence;
+    private final Type type;
+    private final String contentType;
+    private final UUID id;
+    private final Searchable item;
+    private final Instant changedAt;
+
+    public CatalogChangeEvent(long sequence, Type type, String contentType, UUID id, Searchable item, Instant changedAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.contentType = contentType;
+        this.id = id;
+        this.item = item;
+        this.changedAt = changedAt;
+    }
+
+    // previous == null для нового элемента, current == null для удалённого
+    public static CatalogChangeEvent of(long sequence, Instant changedAt, Searchable previous, Searchable current) {
+        Searchable changed = current != null ? current : previous;
+        Type type = previous == null ? Type.ADDED : current == null ? Type.REMOVED : Type.UPDATED;
+        return new CatalogChangeEvent(sequence, type, changed.getContentType(), changed.getId(), current, changedAt);
+    }
+
+    // Совпадает с версией каталога после этого изменения
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    // Новое состояние элемента, null для удалённого
+    public Searchable getItem() {
+        return item;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+}
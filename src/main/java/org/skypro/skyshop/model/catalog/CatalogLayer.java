@@ -0,0 +1,15 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.skypro.skyshop.model.search.Searchable;
+
+// Неизменяемая последовательность элементов, отсортированная по
+// CatalogSnapshot.BY_ID. Объект элемента может создаваться при каждом
+// обращении, поэтому compareTo сравнивает позицию с элементом без этого
+public interface CatalogLayer<T extends Searchable> {
+
+    int size();
+
+    T get(int index);
+
+    int compareTo(int index, Searchable item);
+}
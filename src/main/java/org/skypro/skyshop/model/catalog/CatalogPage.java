@@ -0,0 +1,40 @@
+package org.skypro.skyshop.model.catalog;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class CatalogPage<T> {
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final UUID nextCursor;
+
+    public CatalogPage(List<T> items, UUID nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_LIMIT + ", получено: " + limit);
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public UUID getNextCursor() {
+        return nextCursor;
+    }
+
+    public <R> CatalogPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new CatalogPage<>(mapped, nextCursor);
+    }
+}
@@ -0,0 +1,150 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+public final class CatalogSnapshot {
+    public static final Comparator<Searchable> BY_ID = Comparator
+            .comparing(Searchable::getId)
+            .thenComparing(Searchable::getContentType);
+
+    private final long version;
+    private final Instant lastModified;
+    private final List<Product> products;
+    private final List<Article> articles;
+    private final List<Searchable> searchables;
+    private final List<Product> memoryProducts;
+    private final List<Article> memoryArticles;
+
+    private CatalogSnapshot(long version, Instant lastModified,
+                            List<Product> products, List<Article> articles, List<Searchable> searchables,
+                            List<Product> memoryProducts, List<Article> memoryArticles) {
+        this.version = version;
+        this.lastModified = lastModified;
+        this.products = products;
+        this.articles = articles;
+        this.searchables = searchables;
+        this.memoryProducts = memoryProducts;
+        this.memoryArticles = memoryArticles;
+    }
+
+    public static CatalogSnapshot of(long version, Instant lastModified,
+                                     Collection<Product> products, Collection<Article> articles) {
+        return of(version, lastModified, products, articles, null);
+    }
+
+    // Сортируются только элементы из памяти: базовый слой уже отсортирован
+    // и сливается с ними без копирования своих элементов
+    public static CatalogSnapshot of(long version, Instant lastModified,
+                                     Collection<Product> products, Collection<Article> articles,
+                                     BaseCatalog base) {
+        List<Product> sortedProducts = new ArrayList<>(products);
+        sortedProducts.sort(BY_ID);
+        List<Article> sortedArticles = new ArrayList<>(articles);
+        sortedArticles.sort(BY_ID);
+
+        List<Searchable> searchables = new ArrayList<>(products.size() + articles.size());
+        searchables.addAll(sortedProducts);
+        searchables.addAll(sortedArticles);
+        searchables.sort(BY_ID);
+
+        List<Product> memoryProducts = List.copyOf(sortedProducts);
+        List<Article> memoryArticles = List.copyOf(sortedArticles);
+        if (base == null) {
+            return new CatalogSnapshot(
+                    version,
+                    lastModified,
+                    memoryProducts,
+                    memoryArticles,
+                    List.copyOf(searchables),
+                    memoryProducts,
+                    memoryArticles
+            );
+        }
+        return new CatalogSnapshot(
+                version,
+                lastModified,
+                new MergedList<>(base.products(), memoryProducts),
+                new MergedList<>(base.articles(), memoryArticles),
+                new MergedList<>(base.searchables(), List.copyOf(searchables)),
+                memoryProducts,
+                memoryArticles
+        );
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Article> getArticles() {
+        return articles;
+    }
+
+    public List<Searchable> getSearchables() {
+        return searchables;
+    }
+
+    // Только элементы из памяти, без базового слоя: их и нужно сохранять,
+    // базовый слой и так лежит в своём файле
+    public List<Product> getMemoryProducts() {
+        return memoryProducts;
+    }
+
+    public List<Article> getMemoryArticles() {
+        return memoryArticles;
+    }
+
+    public CatalogPage<Product> getProductPage(UUID after, int limit) {
+        return page(products, after, limit);
+    }
+
+    public CatalogPage<Article> getArticlePage(UUID after, int limit) {
+        return page(articles, after, limit);
+    }
+
+    public CatalogPage<Searchable> getSearchablePage(UUID after, int limit) {
+        return page(searchables, after, limit);
+    }
+
+    // Списки снимка отсортированы по ID, поэтому страница после курсора
+    // находится бинарным поиском и отдаётся как подсписок без копирования
+    private static <T extends Searchable> CatalogPage<T> page(List<T> sorted, UUID after, int limit) {
+        CatalogPage.checkLimit(limit);
+
+        int from = after == null ? 0 : firstIndexAfter(sorted, after);
+        int to = (int) Math.min(sorted.size(), (long) from + limit);
+        UUID nextCursor = to < sorted.size() ? sorted.get(to - 1).getId() : null;
+        return new CatalogPage<>(sorted.subList(from, to), nextCursor);
+    }
+
+    // Индекс первого элемента отсортированного по ID списка с ID больше after
+    public static int firstIndexAfter(List<? extends Searchable> sorted, UUID after) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted.get(middle).getId().compareTo(after) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
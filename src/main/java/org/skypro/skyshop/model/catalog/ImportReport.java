@@ -0,0 +1,58 @@
+package org.skypro.skyshop.model.catalog;
+
+import java.util.List;
+
+public class ImportReport {
+    private final long imported;
+    private final long failed;
+    private final long durationMillis;
+    private final long rowsPerSecond;
+    private final List<RowError> errors;
+
+    public ImportReport(long imported, long failed, long durationMillis, long rowsPerSecond, List<RowError> errors) {
+        this.imported = imported;
+        this.failed = failed;
+        this.durationMillis = durationMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    // Только первые ошибки: на испорченном файле отчёт не должен расти вместе с ним
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Слияние базового слоя с отсортированным списком из памяти. Для каждого
+// элемента из памяти бинарным поиском находится его место в слое, поэтому
+// сборка стоит O(k log n) и O(k) памяти для k элементов из памяти, а элементы
+// слоя не копируются и не перебираются. При совпадении ID и типа остаётся
+// элемент из памяти
+final class MergedList<T extends Searchable> extends AbstractList<T> implements RandomAccess {
+    private final CatalogLayer<? extends T> base;
+    private final List<? extends T> overlay;
+    // Индекс overlay[j] в итоговом списке, строго возрастает
+    private final int[] overlayIndexes;
+    // Сколько элементов слоя перекрыто элементами overlay[0..j)
+    private final int[] replacedBefore;
+    private final int size;
+
+    MergedList(CatalogLayer<? extends T> base, List<? extends T> overlay) {
+        this.base = base;
+        this.overlay = overlay;
+        int overlaySize = overlay.size();
+        this.overlayIndexes = new int[overlaySize];
+        this.replacedBefore = new int[overlaySize + 1];
+        int from = 0;
+        for (int j = 0; j < overlaySize; j++) {
+            T item = overlay.get(j);
+            int position = lowerBound(base, from, item);
+            boolean replaces = position < base.size() && base.compareTo(position, item) == 0;
+            overlayIndexes[j] = position + j - replacedBefore[j];
+            replacedBefore[j + 1] = replacedBefore[j] + (replaces ? 1 : 0);
+            from = replaces ? position + 1 : position;
+        }
+        this.size = base.size() + overlaySize - replacedBefore[overlaySize];
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size);
+        }
+        int found = Arrays.binarySearch(overlayIndexes, index);
+        if (found >= 0) {
+            return overlay.get(found);
+        }
+        // Перед index стоят before элементов из памяти, и часть из них
+        // заменила элементы слоя, которые тоже лежат раньше index
+        int before = -found - 1;
+        return base.get(index - before + replacedBefore[before]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Первая позиция слоя не меньше item, начиная с from
+    private static int lowerBound(CatalogLayer<?> base, int from, Searchable item) {
+        int low = from;
+        int high = base.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (base.compareTo(middle, item) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,80 @@
+package org.skypro.skyshop.model.pricing;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+// Акция со скидкой на набор товаров. В каталоге нет категорий, поэтому
+// "категория" задаётся списком товаров. startsAt и endsAt могут быть null -
+// тогда акция действует с момента создания и без срока окончания
+public class Promotion {
+    private final UUID id;
+    private final String name;
+    private final int discountPercent;
+    private final Instant startsAt;
+    private final Instant endsAt;
+    private final Set<UUID> productIds;
+
+    @JsonCreator
+    public Promotion(@JsonProperty("id") UUID id,
+                     @JsonProperty("name") String name,
+                     @JsonProperty("discountPercent") int discountPercent,
+                     @JsonProperty("startsAt") Instant startsAt,
+                     @JsonProperty("endsAt") Instant endsAt,
+                     @JsonProperty("productIds") Set<UUID> productIds) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Название акции не может быть пустым");
+        }
+        if (discountPercent <= 0 || discountPercent > 100) {
+            throw new IllegalArgumentException("Скидка должна быть в диапазоне от 1 до 100, получено: " + discountPercent);
+        }
+        if (startsAt != null && endsAt != null && !endsAt.isAfter(startsAt)) {
+            throw new IllegalArgumentException("Акция должна заканчиваться позже, чем начинается");
+        }
+        if (productIds == null || productIds.isEmpty()) {
+            throw new IllegalArgumentException("В акции должен быть хотя бы один товар");
+        }
+        this.id = id == null ? UUID.randomUUID() : id;
+        this.name = name;
+        this.discountPercent = discountPercent;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public Instant getStartsAt() {
+        return startsAt;
+    }
+
+    public Instant getEndsAt() {
+        return endsAt;
+    }
+
+    public Set<UUID> getProductIds() {
+        return productIds;
+    }
+
+    public boolean isActiveAt(Instant moment) {
+        return (startsAt == null || !moment.isBefore(startsAt))
+                && (endsAt == null || moment.isBefore(endsAt));
+    }
+
+    public int apply(int price) {
+        return price - (price * discountPercent / 100);
+    }
+}
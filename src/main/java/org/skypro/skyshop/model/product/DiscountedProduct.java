@@ -1,10 +1,14 @@
 package org.skypro.skyshop.model.product;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.UUID;
 
 public class DiscountedProduct extends Product {
     private final int basePrice;
     private final int discountPercent;
+    // Цена со скидкой считается один раз: товар неизменяемый
+    private final int price;
 
     public DiscountedProduct(UUID id, String name, int basePrice, int discountPercent) {
         super(id, name);
@@ -18,11 +22,22 @@ public class DiscountedProduct extends Product {
 
         this.basePrice = basePrice;
         this.discountPercent = discountPercent;
+        this.price = basePrice - (basePrice * discountPercent / 100);
     }
 
     @Override
     public int getPrice() {
-        return basePrice - (basePrice * discountPercent / 100);
+        return price;
+    }
+
+    @JsonIgnore
+    public int getBasePrice() {
+        return basePrice;
+    }
+
+    @JsonIgnore
+    public int getDiscountPercent() {
+        return discountPercent;
     }
 
     @Override
@@ -32,6 +47,6 @@ public class DiscountedProduct extends Product {
 
     @Override
     public String toString() {
-        return getName() + ": " + getPrice() + " руб. (скидка " + discountPercent + "%)";
+        return getName() + ": " + price + " руб. (скидка " + discountPercent + "%)";
     }
 }
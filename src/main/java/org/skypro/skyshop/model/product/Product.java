@@ -1,6 +1,7 @@
 package org.skypro.skyshop.model.product;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.skypro.skyshop.model.search.SearchKey;
 import org.skypro.skyshop.model.search.Searchable;
 
 import java.util.Objects;
@@ -9,6 +10,7 @@ import java.util.UUID;
 public abstract class Product implements Searchable {
     private final UUID id;
     private final String name;
+    private final SearchKey searchKey;
 
     public Product(UUID id, String name) {
         this.id = id;
@@ -16,6 +18,7 @@ public abstract class Product implements Searchable {
             throw new IllegalArgumentException("Название продукта не может быть пустым");
         }
         this.name = name;
+        this.searchKey = SearchKey.of(name);
     }
 
     @Override
@@ -37,6 +40,12 @@ public abstract class Product implements Searchable {
         return name;
     }
 
+    @Override
+    @JsonIgnore
+    public SearchKey getSearchKey() {
+        return searchKey;
+    }
+
     @Override
     @JsonIgnore
     public String getContentType() {
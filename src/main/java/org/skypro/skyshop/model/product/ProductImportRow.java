@@ -0,0 +1,75 @@
+package org.skypro.skyshop.model.product;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+// Строка массового импорта. Проверку значений выполняют конструкторы
+// продуктов, поэтому правила те же, что и при создании по одному
+public class ProductImportRow {
+    private final UUID id;
+    private final String name;
+    private final Type type;
+    private final Integer price;
+    private final Integer discountPercent;
+
+    @JsonCreator
+    public ProductImportRow(@JsonProperty("id") UUID id,
+                            @JsonProperty("name") String name,
+                            @JsonProperty("type") Type type,
+                            @JsonProperty("price") Integer price,
+                            @JsonProperty("discountPercent") Integer discountPercent) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.price = price;
+        this.discountPercent = discountPercent;
+    }
+
+    public Product toProduct() {
+        UUID productId = id == null ? UUID.randomUUID() : id;
+        String productName = name == null ? null : name.trim();
+        // Без явного типа товар со скидкой определяется по наличию скидки
+        Type productType = type != null ? type : discountPercent != null ? Type.DISCOUNTED : Type.SIMPLE;
+        return switch (productType) {
+            case SIMPLE -> new SimpleProduct(productId, productName, required(price, "price"));
+            case DISCOUNTED -> new DiscountedProduct(productId, productName,
+                    required(price, "price"), required(discountPercent, "discountPercent"));
+            case FIX_PRICE -> new FixPriceProduct(productId, productName);
+        };
+    }
+
+    private static int required(Integer value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не заполнено поле " + field);
+        }
+        return value;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getPrice() {
+        return price;
+    }
+
+    public Integer getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public enum Type {
+        SIMPLE,
+        DISCOUNTED,
+        FIX_PRICE
+    }
+}
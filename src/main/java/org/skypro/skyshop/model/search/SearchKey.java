@@ -0,0 +1,86 @@
+package org.skypro.skyshop.model.search;
+
+import java.text.Normalizer;
+
+public final class SearchKey {
+    public static final int TRIGRAM_LENGTH = 3;
+
+    private final String value;
+    private final int nameLength;
+
+    private SearchKey(String value, int nameLength) {
+        this.value = value;
+        this.nameLength = nameLength;
+    }
+
+    public static SearchKey of(String name) {
+        String nameKey = normalize(name);
+        return new SearchKey(nameKey, nameKey.length());
+    }
+
+    public static SearchKey of(String name, String text) {
+        String nameKey = normalize(name);
+        String textKey = normalize(text);
+        String value = textKey.isEmpty() ? nameKey : nameKey + " " + textKey;
+        return new SearchKey(value, nameKey.length());
+    }
+
+    // NFKC, регистронезависимое сравнение, ё -> е и схлопывание пробелов.
+    // Применяется и к поисковым терминам, и к шаблону запроса
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String composed = Normalizer.isNormalized(text, Normalizer.Form.NFKC)
+                ? text
+                : Normalizer.normalize(text, Normalizer.Form.NFKC);
+
+        StringBuilder normalized = new StringBuilder(composed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < composed.length(); ) {
+            int codePoint = composed.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+
+            codePoint = Character.toLowerCase(Character.toUpperCase(codePoint));
+            if (codePoint == 'ё') {
+                codePoint = 'е';
+            }
+            normalized.appendCodePoint(codePoint);
+        }
+        return normalized.toString();
+    }
+
+    // Три символа подряд в одном long. Одна и та же кодировка у индекса в
+    // памяти и у индекса колоночного файла
+    public static long trigram(CharSequence text, int from) {
+        return ((long) text.charAt(from) << 32)
+                | ((long) text.charAt(from + 1) << 16)
+                | text.charAt(from + 2);
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getNameLength() {
+        return nameLength;
+    }
+
+    public boolean contains(String normalizedPattern) {
+        return value.contains(normalizedPattern);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -7,6 +7,8 @@ public interface Searchable {
 
     String getSearchTerm();
 
+    SearchKey getSearchKey();
+
     String getContentType();
 
     String getName();
@@ -2,52 +2,151 @@ package org.skypro.skyshop.service;
 
 import org.skypro.skyshop.exception.NoSuchProductException;
 import org.skypro.skyshop.model.basket.BasketItem;
+import org.skypro.skyshop.model.basket.BasketOperation;
+import org.skypro.skyshop.model.basket.BasketSummary;
+import org.skypro.skyshop.model.basket.BasketTable;
 import org.skypro.skyshop.model.basket.ProductBasket;
 import org.skypro.skyshop.model.basket.UserBasket;
 import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.service.pricing.PriceTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class BasketService {
+    static final int MAX_BULK_OPERATIONS = 1000;
+
     private final ProductBasket productBasket;
     private final StorageService storageService;
+    private final PricingService pricingService;
+    private final Timer userBasketTimer;
 
-    public BasketService(ProductBasket productBasket, StorageService storageService) {
+    public BasketService(ProductBasket productBasket,
+                         StorageService storageService,
+                         PricingService pricingService,
+                         MeterRegistry meterRegistry) {
         this.productBasket = productBasket;
         this.storageService = storageService;
+        this.pricingService = pricingService;
+        this.userBasketTimer = Timer.builder("skyshop.basket.user-basket")
+                .register(meterRegistry);
     }
 
     public void addProductToBasket(UUID productId) {
         Product product = storageService.findProductById(productId)
                 .orElseThrow(() -> new NoSuchProductException("Продукт с ID " + productId + " не найден"));
 
-        productBasket.addProduct(productId);
+        productBasket.addProduct(productId, pricingService.getPrice(product));
+    }
+
+    public void removeProductFromBasket(UUID productId) {
+        if (!productBasket.removeProduct(productId)) {
+            throw new NoSuchProductException("Продукта с ID " + productId + " нет в корзине");
+        }
+    }
+
+    // Пакетное изменение корзины: все товары проверяются одним запросом к
+    // хранилищу, и при любой ошибке корзина остаётся без изменений
+    public BasketSummary applyBulk(List<BasketOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Список операций не может быть пустым");
+        }
+        if (operations.size() > MAX_BULK_OPERATIONS) {
+            throw new IllegalArgumentException("Не больше " + MAX_BULK_OPERATIONS + " операций за запрос");
+        }
+
+        Set<UUID> pricedIds = new HashSet<>();
+        for (BasketOperation operation : operations) {
+            if (operation == null || operation.getProductId() == null || operation.getOp() == null) {
+                throw new IllegalArgumentException("У каждой операции должны быть указаны productId и op");
+            }
+            boolean setOperation = operation.getOp() == BasketOperation.Type.SET;
+            if (operation.getQuantity() < 0 || (!setOperation && operation.getQuantity() == 0)) {
+                throw new IllegalArgumentException("Некорректное количество " + operation.getQuantity()
+                        + " для продукта " + operation.getProductId());
+            }
+            // Удалять можно и товар, которого уже нет в каталоге
+            if (operation.getOp() != BasketOperation.Type.REMOVE) {
+                pricedIds.add(operation.getProductId());
+            }
+        }
+
+        Map<UUID, Product> products = storageService.getProductsByIds(pricedIds);
+        if (products.size() != pricedIds.size()) {
+            List<UUID> missing = pricedIds.stream()
+                    .filter(id -> !products.containsKey(id))
+                    .sorted()
+                    .toList();
+            throw new NoSuchProductException("Продукты не найдены: " + missing);
+        }
+
+        PriceTable priceTable = pricingService.getPriceTable();
+        Map<UUID, Integer> unitPrices = new HashMap<>(products.size() * 4 / 3 + 1);
+        products.forEach((id, product) -> unitPrices.put(id, priceTable.priceOf(product)));
+        return productBasket.applyOperations(operations, unitPrices);
     }
 
     public UserBasket getUserBasket() {
-        Map<UUID, Integer> basketItems = productBasket.getAllProducts();
+        long start = System.nanoTime();
+        try {
+            return buildUserBasket();
+        } finally {
+            userBasketTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Цена позиции - та, что была в таблице цен при последнем добавлении
+    // или установке количества, как и в сводке
+    private UserBasket buildUserBasket() {
+        BasketTable basketItems = productBasket.snapshot();
+        if (basketItems.size() == 0) {
+            return new UserBasket(List.of(), 0, 0);
+        }
 
-        List<BasketItem> items = basketItems.entrySet().stream()
-                .map(entry -> {
-                    Product product = storageService.getProductById(entry.getKey());
-                    int quantity = entry.getValue();
-                    return new BasketItem(product, quantity);
-                })
-                .collect(Collectors.toList());
+        Set<UUID> productIds = new HashSet<>(basketItems.size() * 4 / 3 + 1);
+        basketItems.forEach((msb, lsb, quantity, unitPrice) -> productIds.add(new UUID(msb, lsb)));
+        Map<UUID, Product> products = storageService.getProductsByIds(productIds);
 
-        return new UserBasket(items);
+        List<BasketItem> items = new ArrayList<>(products.size());
+        long[] totals = new long[2];
+        basketItems.forEach((msb, lsb, quantity, unitPrice) -> {
+            Product product = products.get(new UUID(msb, lsb));
+            if (product == null) {
+                // Товар удалили из каталога после добавления в корзину
+                return;
+            }
+            items.add(new BasketItem(product, quantity, unitPrice));
+            totals[0] += (long) unitPrice * quantity;
+            totals[1] += quantity;
+        });
+
+        return new UserBasket(items, totals[0], totals[1]);
     }
 
     public void clearBasket() {
         productBasket.clearBasket();
     }
 
-    public int getTotalItemsCount() {
+    public long getTotalItemsCount() {
         return productBasket.getTotalItemCount();
     }
+
+    // Цена фиксируется в корзине при добавлении товара, поэтому сводка
+    // берётся из счётчиков корзины за O(1) и не пересчитывается, когда
+    // позже меняются цены или акции. Позиции товаров, удалённых из каталога,
+    // остаются в сводке, как и в счётчике товаров, пока их не уберут из
+    // корзины; /basket их не показывает, потому что карточки товара уже нет
+    public BasketSummary getBasketSummary() {
+        return productBasket.getSummary();
+    }
 }
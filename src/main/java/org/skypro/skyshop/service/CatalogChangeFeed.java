@@ -0,0 +1,219 @@
+package org.skypro.skyshop.service;
+
+import org.skypro.skyshop.exception.ChangeFeedGapException;
+import org.skypro.skyshop.model.catalog.CatalogChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Упорядоченная лента изменений каталога. Последние capacity событий лежат
+// в кольцевом буфере: подписчик может продолжить с любого номера, который
+// ещё не вытеснен. Каждый подписчик читает буфер со своей позиции в своём
+// темпе, поэтому медленный потребитель не задерживает запись в каталог, а
+// при отставании больше чем на capacity получает ChangeFeedGapException
+// вместо молча пропущенных событий. Каталог в памяти после перезапуска
+// снова нумерует изменения с тех же номеров, поэтому у каждой ленты своя
+// эпоха: номер имеет смысл только вместе с ней
+public class CatalogChangeFeed implements Flow.Publisher<CatalogChangeEvent> {
+    private final AtomicReferenceArray<CatalogChangeEvent> events;
+    private final int mask;
+    // Номер последнего изменения до запуска: более ранних событий в ленте нет
+    private final long startSequence;
+    private final String epoch;
+    private final Executor executor;
+    private final Set<ChangeSubscription> subscriptions;
+    private volatile long lastSequence;
+
+    public CatalogChangeFeed(int capacity, long startSequence, Executor executor) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Размер ленты изменений должен быть степенью двойки, получено: " + capacity);
+        }
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.startSequence = startSequence;
+        this.lastSequence = startSequence;
+        this.epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+        this.executor = executor;
+        this.subscriptions = ConcurrentHashMap.newKeySet();
+    }
+
+    // Вызывается только из StorageService под publishLock, поэтому номера
+    // событий идут подряд и без пропусков
+    void publish(CatalogChangeEvent event) {
+        events.set((int) event.getSequence() & mask, event);
+        lastSequence = event.getSequence();
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    // Пакет событий с номерами подряд: подписчики будятся один раз на весь пакет
+    void publishAll(List<CatalogChangeEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (CatalogChangeEvent event : batch) {
+            events.set((int) event.getSequence() & mask, event);
+        }
+        lastSequence = batch.get(batch.size() - 1).getSequence();
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    // Не больше limit событий с номерами после afterSequence
+    public List<CatalogChangeEvent> eventsAfter(long afterSequence, int limit) {
+        checkAvailable(afterSequence);
+        long last = lastSequence;
+        List<CatalogChangeEvent> result = new ArrayList<>();
+        for (long sequence = afterSequence + 1; sequence <= last && result.size() < limit; sequence++) {
+            CatalogChangeEvent event = eventAt(sequence);
+            if (event == null) {
+                throw gap(afterSequence);
+            }
+            result.add(event);
+        }
+        return result;
+    }
+
+    // Только новые изменения, начиная со следующего после подписки
+    @Override
+    public void subscribe(Flow.Subscriber<? super CatalogChangeEvent> subscriber) {
+        subscribe(subscriber, lastSequence);
+    }
+
+    // Все изменения с номерами после afterSequence, затем новые по мере появления
+    public void subscribe(Flow.Subscriber<? super CatalogChangeEvent> subscriber, long afterSequence) {
+        subscribe(subscriber, epoch, afterSequence);
+    }
+
+    // Номер из другой эпохи относится к другой нумерации: такой подписчик
+    // сразу получает ChangeFeedGapException и должен загрузить каталог заново
+    public void subscribe(Flow.Subscriber<? super CatalogChangeEvent> subscriber, String epoch, long afterSequence) {
+        ChangeSubscription subscription = new ChangeSubscription(subscriber, afterSequence + 1);
+        if (!this.epoch.equals(epoch)) {
+            subscription.failure = new ChangeFeedGapException(
+                    "Изменения каталога из эпохи " + epoch + " уже недоступны, текущая эпоха " + this.epoch);
+        }
+        subscriptions.add(subscription);
+        executor.execute(subscription::start);
+    }
+
+    private void checkAvailable(long afterSequence) {
+        // Номер больше текущего означает, что потребитель видел другой каталог,
+        // например до перезапуска без сохранения на диск
+        if (afterSequence > lastSequence || !isRetained(afterSequence + 1)) {
+            throw gap(afterSequence);
+        }
+    }
+
+    private boolean isRetained(long sequence) {
+        return sequence > startSequence && sequence > lastSequence - events.length();
+    }
+
+    // null, если событие уже вытеснено из буфера
+    private CatalogChangeEvent eventAt(long sequence) {
+        if (sequence <= startSequence) {
+            return null;
+        }
+        CatalogChangeEvent event = events.get((int) sequence & mask);
+        return event != null && event.getSequence() == sequence ? event : null;
+    }
+
+    private static ChangeFeedGapException gap(long afterSequence) {
+        return new ChangeFeedGapException("Изменения каталога после версии " + afterSequence + " уже недоступны");
+    }
+
+    private final class ChangeSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super CatalogChangeEvent> subscriber;
+        private final AtomicLong demand;
+        // Счётчик сигналов: доставкой занимается один поток, остальные только
+        // увеличивают счётчик, и этот поток делает ещё один проход
+        private final AtomicInteger pending;
+        private long nextSequence;
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+
+        ChangeSubscription(Flow.Subscriber<? super CatalogChangeEvent> subscriber, long nextSequence) {
+            this.subscriber = subscriber;
+            this.nextSequence = nextSequence;
+            this.demand = new AtomicLong();
+            // Первый проход занят start, чтобы onSubscribe пришёл раньше onNext
+            this.pending = new AtomicInteger(1);
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+            if (nextSequence - 1 > lastSequence) {
+                fail(gap(nextSequence - 1));
+                return;
+            }
+            drain(1);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("Запрошено неположительное число событий: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        void signal() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(() -> drain(1));
+            }
+        }
+
+        private void drain(int missed) {
+            do {
+                if (failure != null) {
+                    fail(failure);
+                    return;
+                }
+                while (!cancelled && demand.get() > 0 && nextSequence <= lastSequence) {
+                    CatalogChangeEvent event = eventAt(nextSequence);
+                    if (event == null) {
+                        fail(gap(nextSequence - 1));
+                        return;
+                    }
+                    nextSequence++;
+                    demand.decrementAndGet();
+                    subscriber.onNext(event);
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fail(Throwable error) {
+            if (!cancelled) {
+                cancel();
+                subscriber.onError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.skypro.skyshop.service;
+
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface CatalogChangeListener {
+
+    // previous == null для нового элемента, current == null для удалённого
+    void onSearchableChanged(Searchable previous, Searchable current);
+
+    // Пакетная запись: previous.get(i) заменён на current.get(i). Слушатели,
+    // которым дорого обрабатывать изменения по одному, переопределяют метод
+    // и реагируют на весь пакет сразу
+    default void onSearchablesChanged(List<? extends Searchable> previous, List<? extends Searchable> current) {
+        for (int i = 0; i < current.size(); i++) {
+            onSearchableChanged(previous.get(i), current.get(i));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.skypro.skyshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.skypro.skyshop.model.catalog.ImportReport;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.ProductImportRow;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Массовый импорт товаров. Тело запроса читается построчно и в памяти
+// держится только текущий пакет: он целиком уходит в StorageService одной
+// блокировкой, одним обновлением поискового индекса, одним сбросом кэшей и одним fsync журнала
+@Service
+public class CatalogImportService {
+    static final int BATCH_SIZE = 10_000;
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final List<String> CSV_COLUMNS = List.of("id", "name", "type", "price", "discountpercent");
+
+    private final StorageService storageService;
+    private final ObjectMapper objectMapper;
+
+    public CatalogImportService(StorageService storageService, ObjectMapper objectMapper) {
+        this.storageService = storageService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Одна строка - один JSON-объект товара
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        return importRows(reader(body), line -> objectMapper.readValue(line, ProductImportRow.class), 0);
+    }
+
+    // Первая строка - заголовок с названиями колонок в любом порядке.
+    // Значения в кавычках поддерживаются, переносы строк внутри них - нет
+    public ImportReport importCsv(InputStream body) throws IOException {
+        BufferedReader reader = reader(body);
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new IllegalArgumentException("В CSV нет строки заголовка");
+        }
+        Map<String, Integer> columns = csvColumns(header);
+        return importRows(reader, line -> csvRow(splitCsv(line), columns), 1);
+    }
+
+    private ImportReport importRows(BufferedReader reader, RowParser parser, long firstRow) throws IOException {
+        long start = System.nanoTime();
+        List<Product> batch = new ArrayList<>(BATCH_SIZE);
+        List<ImportReport.RowError> errors = new ArrayList<>();
+        long imported = 0;
+        long failed = 0;
+        long row = firstRow;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ProductImportRow parsed = parser.parse(line);
+                if (parsed == null) {
+                    throw new IllegalArgumentException("Строка не содержит товара");
+                }
+                batch.add(parsed.toProduct());
+            } catch (JsonProcessingException e) {
+                failed++;
+                addError(errors, row, "Некорректный JSON: " + e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                failed++;
+                addError(errors, row, e.getMessage());
+                continue;
+            }
+            if (batch.size() == BATCH_SIZE) {
+                storageService.addProducts(batch);
+                imported += batch.size();
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        storageService.addProducts(batch);
+        imported += batch.size();
+
+        long durationNanos = System.nanoTime() - start;
+        long rowsPerSecond = (imported + failed) * TimeUnit.SECONDS.toNanos(1) / Math.max(durationNanos, 1);
+        return new ImportReport(imported, failed, TimeUnit.NANOSECONDS.toMillis(durationNanos), rowsPerSecond, errors);
+    }
+
+    private static void addError(List<ImportReport.RowError> errors, long row, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportReport.RowError(row, message));
+        }
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static Map<String, Integer> csvColumns(String header) {
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (CSV_COLUMNS.contains(name)) {
+                columns.put(name, i);
+            }
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("В заголовке CSV нет колонки name");
+        }
+        return columns;
+    }
+
+    private static ProductImportRow csvRow(List<String> cells, Map<String, Integer> columns) {
+        String id = cell(cells, columns, "id");
+        String type = cell(cells, columns, "type");
+        return new ProductImportRow(
+                id == null ? null : uuid(id),
+                cell(cells, columns, "name"),
+                type == null ? null : type(type),
+                number(cell(cells, columns, "price"), "price"),
+                number(cell(cells, columns, "discountpercent"), "discountPercent"));
+    }
+
+    // Пустая ячейка и отсутствующая колонка означают, что значение не задано
+    private static String cell(List<String> cells, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static UUID uuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный ID продукта: " + value);
+        }
+    }
+
+    private static ProductImportRow.Type type(String value) {
+        try {
+            return ProductImportRow.Type.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный тип продукта: " + value);
+        }
+    }
+
+    private static Integer number(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное число в колонке " + column + ": " + value);
+        }
+    }
+
+    // Разделитель - запятая; внутри кавычек запятая обычный символ, а "" - сама кавычка
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка в строке CSV");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        ProductImportRow parse(String line) throws IOException;
+    }
+}
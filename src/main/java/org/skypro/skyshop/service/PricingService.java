@@ -0,0 +1,166 @@
+package org.skypro.skyshop.service;
+
+import org.skypro.skyshop.exception.NoSuchProductException;
+import org.skypro.skyshop.exception.NoSuchPromotionException;
+import org.skypro.skyshop.model.pricing.Promotion;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.pricing.PriceTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Цены по акциям вычисляются заранее и публикуются одной неизменяемой
+// таблицей. Чтение цены - поиск в таблице без блокировок, пересборка
+// происходит только при изменении акций, товаров из акций или на границе
+// действия акции
+@Service
+public class PricingService implements CatalogChangeListener {
+    private final StorageService storageService;
+    private final Clock clock;
+    private final Map<UUID, Promotion> promotions;
+    private final Set<UUID> promotedProductIds;
+    private final AtomicLong epoch;
+    private final Lock rebuildLock;
+    private volatile PriceTable priceTable;
+
+    @Autowired
+    public PricingService(StorageService storageService) {
+        this(storageService, Clock.systemUTC());
+    }
+
+    public PricingService(StorageService storageService, Clock clock) {
+        this.storageService = storageService;
+        this.clock = clock;
+        this.promotions = new ConcurrentHashMap<>();
+        this.promotedProductIds = ConcurrentHashMap.newKeySet();
+        this.epoch = new AtomicLong();
+        this.rebuildLock = new ReentrantLock();
+        this.priceTable = new PriceTable(Map.of(), 0, Long.MAX_VALUE);
+        storageService.addChangeListener(this);
+    }
+
+    public int getPrice(Product product) {
+        return getPriceTable().priceOf(product);
+    }
+
+    public PriceTable getPriceTable() {
+        PriceTable table = priceTable;
+        if (table.getEpoch() == epoch.get() && clock.millis() < table.getValidUntilMillis()) {
+            return table;
+        }
+        return rebuild();
+    }
+
+    public Promotion addPromotion(Promotion promotion) {
+        Map<UUID, Product> products = storageService.getProductsByIds(promotion.getProductIds());
+        if (products.size() != promotion.getProductIds().size()) {
+            List<UUID> missing = promotion.getProductIds().stream()
+                    .filter(id -> !products.containsKey(id))
+                    .sorted()
+                    .toList();
+            throw new NoSuchProductException("Продукты не найдены: " + missing);
+        }
+        rebuildLock.lock();
+        try {
+            promotions.put(promotion.getId(), promotion);
+            refreshPromotedProductIds();
+            epoch.incrementAndGet();
+        } finally {
+            rebuildLock.unlock();
+        }
+        return promotion;
+    }
+
+    public void removePromotion(UUID promotionId) {
+        rebuildLock.lock();
+        try {
+            if (promotions.remove(promotionId) == null) {
+                throw new NoSuchPromotionException("Акция с ID " + promotionId + " не найдена");
+            }
+            refreshPromotedProductIds();
+            epoch.incrementAndGet();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public Collection<Promotion> getPromotions() {
+        return List.copyOf(promotions.values());
+    }
+
+    // Вызывается под блокировкой записи каталога, поэтому здесь только
+    // помечаем таблицу устаревшей, а пересобираем её при следующем чтении
+    @Override
+    public void onSearchableChanged(Searchable previous, Searchable current) {
+        // При удалении товара current == null, цену нужно убрать по previous
+        Searchable changed = current != null ? current : previous;
+        if (changed instanceof Product product && promotedProductIds.contains(product.getId())) {
+            epoch.incrementAndGet();
+        }
+    }
+
+    // Для пакета таблица устаревает один раз, сколько бы акционных товаров в нём ни было
+    @Override
+    public void onSearchablesChanged(List<? extends Searchable> previous, List<? extends Searchable> current) {
+        for (int i = 0; i < current.size(); i++) {
+            Searchable changed = current.get(i) != null ? current.get(i) : previous.get(i);
+            if (changed instanceof Product product && promotedProductIds.contains(product.getId())) {
+                epoch.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private PriceTable rebuild() {
+        rebuildLock.lock();
+        try {
+            long buildEpoch = epoch.get();
+            Instant now = clock.instant();
+            PriceTable current = priceTable;
+            if (current.getEpoch() == buildEpoch && now.toEpochMilli() < current.getValidUntilMillis()) {
+                return current;
+            }
+
+            Map<UUID, Product> products = storageService.getProductsByIds(promotedProductIds);
+            Map<UUID, Integer> promotionalPrices = new HashMap<>();
+            long validUntil = Long.MAX_VALUE;
+            for (Promotion promotion : promotions.values()) {
+                if (promotion.isActiveAt(now)) {
+                    for (UUID productId : promotion.getProductIds()) {
+                        Product product = products.get(productId);
+                        if (product != null) {
+                            // При пересечении акций покупатель получает лучшую цену
+                            promotionalPrices.merge(productId, promotion.apply(product.getPrice()), Math::min);
+                        }
+                    }
+                    if (promotion.getEndsAt() != null) {
+                        validUntil = Math.min(validUntil, promotion.getEndsAt().toEpochMilli());
+                    }
+                } else if (promotion.getStartsAt() != null && now.isBefore(promotion.getStartsAt())) {
+                    validUntil = Math.min(validUntil, promotion.getStartsAt().toEpochMilli());
+                }
+            }
+
+            PriceTable table = new PriceTable(Map.copyOf(promotionalPrices), buildEpoch, validUntil, now.toEpochMilli());
+            priceTable = table;
+            return table;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void refreshPromotedProductIds() {
+        Set<UUID> ids = new HashSet<>();
+        promotions.values().forEach(promotion -> ids.addAll(promotion.getProductIds()));
+        promotedProductIds.retainAll(ids);
+        promotedProductIds.addAll(ids);
+    }
+}
@@ -1,32 +1,223 @@
 package org.skypro.skyshop.service;
 
+import org.skypro.skyshop.model.catalog.CatalogPage;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.search.SearchKey;
 import org.skypro.skyshop.model.search.SearchResult;
 import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.search.ParallelSearch;
+import org.skypro.skyshop.service.search.RelevanceScorer;
+import org.skypro.skyshop.service.search.SearchCache;
+import org.skypro.skyshop.service.search.SearchCacheStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SearchService {
     private final StorageService storageService;
+    private final SearchCache searchCache;
+    private final ParallelSearch parallelSearch;
+    private final Timer cachedSearchTimer;
+    private final Timer uncachedSearchTimer;
+    private final Timer topSearchTimer;
+    private final Timer pageSearchTimer;
+    private final Timer streamSearchTimer;
+    private final DistributionSummary candidatesSummary;
+    private final DistributionSummary matchesSummary;
+    private final DistributionSummary patternLengthSummary;
 
-    public SearchService(StorageService storageService) {
+    public SearchService(StorageService storageService,
+                         SearchCache searchCache,
+                         ParallelSearch parallelSearch) {
+        this(storageService, searchCache, parallelSearch, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public SearchService(StorageService storageService,
+                         SearchCache searchCache,
+                         ParallelSearch parallelSearch,
+                         MeterRegistry meterRegistry) {
         this.storageService = storageService;
+        this.searchCache = searchCache;
+        this.parallelSearch = parallelSearch;
+        // Один таймер на все виды поиска: mode различает эндпоинты, а cache
+        // имеет смысл только для полного поиска, остальные его не используют
+        this.cachedSearchTimer = searchTimer("full", "hit", meterRegistry);
+        this.uncachedSearchTimer = searchTimer("full", "miss", meterRegistry);
+        this.topSearchTimer = searchTimer("top", "none", meterRegistry);
+        this.pageSearchTimer = searchTimer("page", "none", meterRegistry);
+        this.streamSearchTimer = searchTimer("stream", "none", meterRegistry);
+        this.candidatesSummary = DistributionSummary.builder("skyshop.search.candidates")
+                .register(meterRegistry);
+        this.matchesSummary = DistributionSummary.builder("skyshop.search.matches")
+                .register(meterRegistry);
+        this.patternLengthSummary = DistributionSummary.builder("skyshop.search.pattern.length")
+                .register(meterRegistry);
+        storageService.addChangeListener(searchCache);
     }
 
     public Collection<SearchResult> search(String pattern) {
-        if (pattern == null || pattern.trim().isEmpty()) {
-            return storageService.getAllSearchables().stream()
-                    .map(SearchResult::fromSearchable)
-                    .collect(Collectors.toList());
+        long start = System.nanoTime();
+        String normalizedPattern = SearchKey.normalize(pattern);
+        patternLengthSummary.record(normalizedPattern.length());
+        List<SearchResult> cached = searchCache.get(normalizedPattern);
+        if (cached != null) {
+            cachedSearchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
         }
 
-        String patternLower = pattern.toLowerCase().trim();
+        long ticket = searchCache.ticket();
+        List<SearchResult> results = collectMatches(normalizedPattern);
+        searchCache.put(normalizedPattern, results, ticket);
+        matchesSummary.record(results.size());
+        uncachedSearchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return results;
+    }
+
+    private static Timer searchTimer(String mode, String cache, MeterRegistry meterRegistry) {
+        return Timer.builder("skyshop.search")
+                .tag("mode", mode)
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
+    public SearchCacheStats getCacheStats() {
+        return searchCache.getStats();
+    }
+
+    // Результаты читаются лениво, поэтому время отсчитывается до закрытия
+    // потока, то есть включает и выдачу всех найденных элементов
+    public Stream<SearchResult> searchStream(String pattern) {
+        long start = System.nanoTime();
+        return searchNormalized(SearchKey.normalize(pattern))
+                .onClose(() -> streamSearchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
 
-        return storageService.getAllSearchables().stream()
-                .filter(item -> item.getSearchTerm().toLowerCase().contains(patternLower))
+    private List<SearchResult> collectMatches(String normalizedPattern) {
+        Collection<Searchable> candidates = normalizedPattern.isEmpty()
+                ? storageService.getAllSearchables()
+                : storageService.searchCandidates(normalizedPattern);
+        candidatesSummary.record(candidates.size());
+        if (candidates instanceof List<Searchable> candidateList && parallelSearch.shouldRun(candidateList.size())) {
+            return parallelSearch.match(candidateList, normalizedPattern);
+        }
+        return candidates.stream()
+                .filter(item -> item.getSearchKey().contains(normalizedPattern))
                 .map(SearchResult::fromSearchable)
                 .collect(Collectors.toList());
     }
+
+    private Stream<SearchResult> searchNormalized(String normalizedPattern) {
+        if (normalizedPattern.isEmpty()) {
+            return storageService.getAllSearchables().stream()
+                    .map(SearchResult::fromSearchable);
+        }
+
+        return matches(normalizedPattern)
+                .map(SearchResult::fromSearchable);
+    }
+
+    public CatalogPage<SearchResult> searchPage(String pattern, UUID after, int limit) {
+        CatalogPage.checkLimit(limit);
+        long start = System.nanoTime();
+        CatalogPage<SearchResult> page = searchPageNormalized(SearchKey.normalize(pattern), after, limit);
+        pageSearchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    private CatalogPage<SearchResult> searchPageNormalized(String normalizedPattern, UUID after, int limit) {
+        if (normalizedPattern.isEmpty()) {
+            return storageService.getCatalogSnapshot()
+                    .getSearchablePage(after, limit)
+                    .map(SearchResult::fromSearchable);
+        }
+
+        // Ограниченная куча хранит limit + 1 наименьших по ID совпадений после
+        // курсора: лишний элемент только сообщает, что есть следующая страница
+        PriorityQueue<Searchable> smallest = new PriorityQueue<>(limit + 1, CatalogSnapshot.BY_ID.reversed());
+        matches(normalizedPattern)
+                .filter(item -> after == null || item.getId().compareTo(after) > 0)
+                .forEach(item -> {
+                    if (smallest.size() <= limit) {
+                        smallest.add(item);
+                    } else if (CatalogSnapshot.BY_ID.compare(item, smallest.peek()) < 0) {
+                        smallest.poll();
+                        smallest.add(item);
+                    }
+                });
+
+        boolean hasMore = smallest.size() > limit;
+        if (hasMore) {
+            smallest.poll();
+        }
+        List<Searchable> items = new ArrayList<>(smallest);
+        items.sort(CatalogSnapshot.BY_ID);
+
+        UUID nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new CatalogPage<>(items, nextCursor).map(SearchResult::fromSearchable);
+    }
+
+    public List<SearchResult> searchTop(String pattern, int limit) {
+        CatalogPage.checkLimit(limit);
+        long start = System.nanoTime();
+        List<SearchResult> results = searchTopNormalized(SearchKey.normalize(pattern), limit);
+        topSearchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return results;
+    }
+
+    private List<SearchResult> searchTopNormalized(String normalizedPattern, int limit) {
+        Collection<Searchable> candidates = normalizedPattern.isEmpty()
+                ? storageService.getAllSearchables()
+                : storageService.searchCandidates(normalizedPattern);
+
+        // В куче лежат limit лучших найденных элементов, в вершине - худший из них,
+        // поэтому оценивается каждый кандидат, но сортируются только limit штук.
+        // Досрочный выход возможен лишь когда все limit элементов - товары, чьё
+        // название начинается с шаблона: на обычных запросах этого не бывает
+        PriorityQueue<ScoredItem> best = new PriorityQueue<>(limit + 1, ScoredItem.WORST_FIRST);
+        for (Searchable item : candidates) {
+            int score = RelevanceScorer.score(item, normalizedPattern);
+            if (score == RelevanceScorer.NO_MATCH) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new ScoredItem(item, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new ScoredItem(item, score));
+            }
+            if (best.size() == limit && best.peek().score() == RelevanceScorer.MAX_SCORE) {
+                break;
+            }
+        }
+
+        List<ScoredItem> ranked = new ArrayList<>(best);
+        ranked.sort(ScoredItem.WORST_FIRST.reversed());
+        return ranked.stream()
+                .map(scored -> SearchResult.fromSearchable(scored.item()))
+                .collect(Collectors.toList());
+    }
+
+    private Stream<Searchable> matches(String normalizedPattern) {
+        return storageService.searchCandidates(normalizedPattern).stream()
+                .filter(item -> item.getSearchKey().contains(normalizedPattern));
+    }
+
+    private record ScoredItem(Searchable item, int score) {
+        static final Comparator<ScoredItem> WORST_FIRST = Comparator.comparingInt(ScoredItem::score);
+    }
 }
@@ -2,24 +2,130 @@ package org.skypro.skyshop.service;
 
 import org.skypro.skyshop.exception.NoSuchProductException;
 import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.CatalogChangeEvent;
+import org.skypro.skyshop.model.catalog.CatalogPage;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
 import org.skypro.skyshop.model.product.Product;
 import org.skypro.skyshop.model.product.SimpleProduct;
 import org.skypro.skyshop.model.product.DiscountedProduct;
 import org.skypro.skyshop.model.product.FixPriceProduct;
 import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.search.TrigramIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.skypro.skyshop.storage.CatalogJournal;
+import org.skypro.skyshop.storage.ColumnarCatalogWriter;
+import org.skypro.skyshop.storage.InMemoryCatalogJournal;
+import org.skypro.skyshop.storage.MappedCatalog;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
-public class StorageService {
+public class StorageService implements DisposableBean {
+    private static final int CHANGE_FEED_CAPACITY = 1 << 16;
+    private static final int SNAPSHOT_OPTIMISTIC_ATTEMPTS = 3;
+    private static final int WRITE_STRIPES = 32;
+
     private final Map<UUID, Product> productStorage;
     private final Map<UUID, Article> articleStorage;
+    private final TrigramIndex searchIndex;
+    // Записи одного ID упорядочены блокировкой его полосы, записи разных
+    // полос идут параллельно. Под publishLock остаётся только короткая часть,
+    // которой нужен общий порядок: номер версии, слушатели, лента и журнал
+    private final ReentrantLock[] writeStripes;
+    private final ReentrantLock publishLock;
+    private final AtomicInteger writesInFlight;
+    private final Lock snapshotLock;
+    private final List<CatalogChangeListener> changeListeners;
+    private volatile long catalogVersion;
+    private volatile Instant lastModified;
+    private volatile CatalogSnapshot snapshot;
+    private final Timer productWriteTimer;
+    private final Timer articleWriteTimer;
+    private final Timer batchWriteTimer;
+    private final Timer productRemoveTimer;
+    private final Timer snapshotRebuildTimer;
+    private final Timer bulkLookupTimer;
+    private final CatalogJournal journal;
+    private final MappedCatalog mappedCatalog;
+    private final CatalogChangeFeed changeFeed;
 
     public StorageService() {
-        this.productStorage = new HashMap<UUID, Product>();
-        this.articleStorage = new HashMap<UUID, Article>();
-        initializeTestData();
+        this(Metrics.globalRegistry, new InMemoryCatalogJournal());
+    }
+
+    public StorageService(MeterRegistry meterRegistry, CatalogJournal journal) {
+        this(meterRegistry, journal, null);
+    }
+
+    // mappedCatalog - необязательный базовый слой только для чтения: его товары
+    // и статьи видны во всех чтениях (снимок, страницы, поиск, счётчики), а
+    // элементы в памяти с тем же ID его перекрывают
+    @Autowired
+    public StorageService(MeterRegistry meterRegistry, CatalogJournal journal, @Nullable MappedCatalog mappedCatalog) {
+        this.productStorage = new ConcurrentHashMap<>();
+        this.articleStorage = new ConcurrentHashMap<>();
+        this.searchIndex = new TrigramIndex();
+        this.writeStripes = new ReentrantLock[WRITE_STRIPES];
+        for (int i = 0; i < WRITE_STRIPES; i++) {
+            writeStripes[i] = new ReentrantLock();
+        }
+        this.publishLock = new ReentrantLock();
+        this.writesInFlight = new AtomicInteger();
+        this.snapshotLock = new ReentrantLock();
+        this.changeListeners = new CopyOnWriteArrayList<>();
+        this.lastModified = Instant.now();
+        // Таймеры создаются один раз: на горячем пути только запись значения
+        this.productWriteTimer = storageTimer(meterRegistry, "add_product");
+        this.articleWriteTimer = storageTimer(meterRegistry, "add_article");
+        this.batchWriteTimer = storageTimer(meterRegistry, "add_products");
+        this.productRemoveTimer = storageTimer(meterRegistry, "remove_product");
+        this.snapshotRebuildTimer = storageTimer(meterRegistry, "snapshot_rebuild");
+        this.bulkLookupTimer = storageTimer(meterRegistry, "products_by_ids");
+        Gauge.builder("skyshop.catalog.size", productStorage, Map::size)
+                .tag("type", "product")
+                .register(meterRegistry);
+        Gauge.builder("skyshop.catalog.size", articleStorage, Map::size)
+                .tag("type", "article")
+                .register(meterRegistry);
+        this.journal = journal;
+        this.mappedCatalog = mappedCatalog;
+        this.catalogVersion = journal.recover(this::restore, this::restoreRemoval);
+        // Доставка подписчикам может ждать сеть, поэтому идёт в виртуальных потоках
+        this.changeFeed = new CatalogChangeFeed(CHANGE_FEED_CAPACITY, catalogVersion,
+                Executors.newVirtualThreadPerTaskExecutor());
+        // Индекс строится один раз по итоговому состоянию, без промежуточных версий
+        searchIndex.addAll(productStorage.values());
+        searchIndex.addAll(articleStorage.values());
+        // Тестовые данные нужны только новому пустому каталогу: сохранённый
+        // и каталог с базовым слоем из файла не трогаем
+        if (productStorage.isEmpty() && articleStorage.isEmpty() && mappedCatalog == null) {
+            initializeTestData();
+        }
+    }
+
+    private static Timer storageTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("skyshop.storage")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 
     private void initializeTestData() {
@@ -29,7 +135,7 @@ public class StorageService {
                 "Тестовый ноутбук",
                 50000
         );
-        productStorage.put(testProduct.getId(), testProduct);
+        addProduct(testProduct);
 
         Product laptop1 = new SimpleProduct(
                 UUID.randomUUID(),
@@ -62,11 +168,11 @@ public class StorageService {
         );
 
 
-        productStorage.put(laptop1.getId(), laptop1);
-        productStorage.put(laptop2.getId(), laptop2);
-        productStorage.put(mouse.getId(), mouse);
-        productStorage.put(keyboard.getId(), keyboard);
-        productStorage.put(fixedProduct.getId(), fixedProduct);
+        addProduct(laptop1);
+        addProduct(laptop2);
+        addProduct(mouse);
+        addProduct(keyboard);
+        addProduct(fixedProduct);
 
 
         Article article1 = new Article(
@@ -82,59 +188,418 @@ public class StorageService {
         );
 
 
-        articleStorage.put(article1.getId(), article1);
-        articleStorage.put(article2.getId(), article2);
+        addArticle(article1);
+        addArticle(article2);
     }
 
     public Collection<Product> getAllProducts() {
-        return new ArrayList<>(productStorage.values());
+        return getCatalogSnapshot().getProducts();
     }
 
     public Collection<Article> getAllArticles() {
-        return new ArrayList<>(articleStorage.values());
+        return getCatalogSnapshot().getArticles();
     }
 
     public Collection<Searchable> getAllSearchables() {
-        List<Searchable> allSearchables = new ArrayList<>();
-        allSearchables.addAll(productStorage.values());
-        allSearchables.addAll(articleStorage.values());
-        return allSearchables;
+        return getCatalogSnapshot().getSearchables();
+    }
+
+    public CatalogPage<Product> getProductPage(UUID after, int limit) {
+        return getCatalogSnapshot().getProductPage(after, limit);
+    }
+
+    public CatalogPage<Article> getArticlePage(UUID after, int limit) {
+        return getCatalogSnapshot().getArticlePage(after, limit);
+    }
+
+    public Collection<Searchable> searchCandidates(String normalizedPattern) {
+        if (!TrigramIndex.isIndexable(normalizedPattern)) {
+            return getAllSearchables();
+        }
+        List<Searchable> candidates = searchIndex.candidates(normalizedPattern);
+        if (mappedCatalog == null) {
+            return candidates;
+        }
+        // Индекс покрывает только память, у файла свой триграммный индекс.
+        // Перекрытые элементы файла пропускаем: их версия из памяти уже
+        // среди кандидатов индекса, если подходит под шаблон
+        List<Searchable> merged = new ArrayList<>(candidates);
+        for (Searchable item : mappedCatalog.findMatching(normalizedPattern)) {
+            if (!isInMemory(item)) {
+                merged.add(item);
+            }
+        }
+        return merged;
     }
 
     public Optional<Product> findProductById(UUID id) {
-        return Optional.ofNullable(productStorage.get(id));
+        return Optional.ofNullable(lookupProduct(id));
     }
 
     public Product getProductById(UUID id) {
-        Product product = productStorage.get(id);
+        Product product = lookupProduct(id);
         if (product == null) {
             throw new NoSuchProductException("Продукт с ID " + id + " не найден");
         }
         return product;
     }
 
+    // Товары, которых нет в каталоге, в результат не попадают
+    public Map<UUID, Product> getProductsByIds(Collection<UUID> ids) {
+        long start = System.nanoTime();
+        Map<UUID, Product> products = new HashMap<>(Math.max(16, ids.size() * 4 / 3 + 1));
+        for (UUID id : ids) {
+            Product product = lookupProduct(id);
+            if (product != null) {
+                products.put(id, product);
+            }
+        }
+        bulkLookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return products;
+    }
+
     public Article getArticleById(UUID id) {
-        return articleStorage.get(id);
+        Article article = articleStorage.get(id);
+        if (article == null && mappedCatalog != null) {
+            return mappedCatalog.findArticle(id);
+        }
+        return article;
     }
 
     public Product addProduct(Product product) {
-        productStorage.put(product.getId(), product);
+        long start = System.nanoTime();
+        CompletableFuture<Void> durable;
+        ReentrantLock stripe = stripeOf(product.getId());
+        stripe.lock();
+        writesInFlight.incrementAndGet();
+        try {
+            journal.checkWritable();
+            Product previous = productStorage.put(product.getId(), product);
+            searchIndex.add(product);
+            durable = publish(previous, product);
+        } finally {
+            writesInFlight.decrementAndGet();
+            stripe.unlock();
+        }
+        awaitDurable(durable);
+        productWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         return product;
     }
 
+    // Пакетная запись: полосы всех товаров пакета берутся сразу, по
+    // возрастанию номера, дальше один вызов слушателей, одна публикация в
+    // ленту и одно ожидание fsync на весь пакет. Номер версии по-прежнему
+    // получает каждое изменение
+    public void addProducts(List<? extends Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> durable;
+        List<ReentrantLock> stripes = stripesOf(products);
+        stripes.forEach(ReentrantLock::lock);
+        writesInFlight.incrementAndGet();
+        try {
+            journal.checkWritable();
+            searchIndex.addAll(products);
+            List<Product> previous = new ArrayList<>(products.size());
+            for (Product product : products) {
+                previous.add(productStorage.put(product.getId(), product));
+            }
+            durable = publish(previous, products);
+        } finally {
+            writesInFlight.decrementAndGet();
+            stripes.forEach(ReentrantLock::unlock);
+        }
+        awaitDurable(durable);
+        batchWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Товары из колоночного файла только для чтения удалить нельзя: версия
+    // из файла снова стала бы видна вместо удалённой
+    public Product removeProduct(UUID id) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> durable;
+        Product removed;
+        ReentrantLock stripe = stripeOf(id);
+        stripe.lock();
+        writesInFlight.incrementAndGet();
+        try {
+            journal.checkWritable();
+            if (mappedCatalog != null && mappedCatalog.findProduct(id) != null) {
+                throw new IllegalArgumentException("Продукт с ID " + id + " хранится в колоночном файле и не может быть удалён");
+            }
+            removed = productStorage.remove(id);
+            if (removed == null) {
+                throw new NoSuchProductException("Продукт с ID " + id + " не найден");
+            }
+            searchIndex.remove(removed);
+            durable = publish(removed, null);
+        } finally {
+            writesInFlight.decrementAndGet();
+            stripe.unlock();
+        }
+        awaitDurable(durable);
+        productRemoveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return removed;
+    }
+
     public Article addArticle(Article article) {
-        articleStorage.put(article.getId(), article);
+        long start = System.nanoTime();
+        CompletableFuture<Void> durable;
+        ReentrantLock stripe = stripeOf(article.getId());
+        stripe.lock();
+        writesInFlight.incrementAndGet();
+        try {
+            journal.checkWritable();
+            Article previous = articleStorage.put(article.getId(), article);
+            searchIndex.add(article);
+            durable = publish(previous, article);
+        } finally {
+            writesInFlight.decrementAndGet();
+            stripe.unlock();
+        }
+        awaitDurable(durable);
+        articleWriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         return article;
     }
 
+    // true, если именно этот объект сейчас лежит в каталоге в памяти
+    public boolean isCurrent(Searchable item) {
+        if (item instanceof Product) {
+            return productStorage.get(item.getId()) == item;
+        }
+        return articleStorage.get(item.getId()) == item;
+    }
+
     public int getProductCount() {
-        return productStorage.size();
+        return mappedCatalog == null ? productStorage.size() : getCatalogSnapshot().getProducts().size();
     }
 
     public int getArticleCount() {
-        return articleStorage.size();
+        return mappedCatalog == null ? articleStorage.size() : getCatalogSnapshot().getArticles().size();
+    }
+
+    // Пишет весь каталог, вместе с базовым слоем, в колоночный файл, который
+    // можно подключить как skyshop.catalog.mapped-file при следующем запуске
+    public CatalogSnapshot exportColumnar(Path target) {
+        CatalogSnapshot current = getCatalogSnapshot();
+        ColumnarCatalogWriter.write(target, current);
+        return current;
+    }
+
+    // Слушатели вызываются синхронно под publishLock и должны быть
+    // быстрыми. Потребителям, которым это не подходит, нужна getChangeFeed()
+    public void addChangeListener(CatalogChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public CatalogChangeFeed getChangeFeed() {
+        return changeFeed;
     }
-}
 
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
 
+    // Снимок пересобирается лениво при первом чтении после записи: серия
+    // записей подряд приводит к одной пересборке, а чтения без записей
+    // возвращают уже готовый неизменяемый снимок без копирования.
+    // Сортировка идёт без блокировок записи, поэтому запись не ждёт пересборку.
+    // Снимок годен, только если его версия совпадает с текущей
+    public CatalogSnapshot getCatalogSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null && current.getVersion() == catalogVersion) {
+            return current;
+        }
+        // Поток публикует изменение (например, вызван из слушателя): ждать
+        // snapshotLock под publishLock нельзя. Записи других полос в этот
+        // момент могут быть уже в картах, но ещё без номера версии
+        if (publishLock.isHeldByCurrentThread()) {
+            return snapshotOf(catalogVersion, lastModified);
+        }
+        // Пересобирает один поток, остальные читатели ждут его результат
+        snapshotLock.lock();
+        try {
+            current = snapshot;
+            if (current != null && current.getVersion() == catalogVersion) {
+                return current;
+            }
+            long start = System.nanoTime();
+            CatalogSnapshot rebuilt = buildSnapshot();
+            snapshot = rebuilt;
+            snapshotRebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return rebuilt;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
 
+    // Запись считается начатой до изменения карт и законченной только после
+    // увеличения версии. Если незаконченных записей не было до и после
+    // сборки, а версия не изменилась, снимок в точности соответствует ей.
+    // При непрерывных записях после нескольких попыток собираем, заняв все полосы
+    private CatalogSnapshot buildSnapshot() {
+        for (int attempt = 0; attempt < SNAPSHOT_OPTIMISTIC_ATTEMPTS; attempt++) {
+            long version = catalogVersion;
+            Instant modified = lastModified;
+            if (writesInFlight.get() != 0 || catalogVersion != version) {
+                Thread.onSpinWait();
+                continue;
+            }
+            CatalogSnapshot built = snapshotOf(version, modified);
+            if (writesInFlight.get() == 0 && catalogVersion == version) {
+                return built;
+            }
+        }
+        for (ReentrantLock stripe : writeStripes) {
+            stripe.lock();
+        }
+        try {
+            return snapshotOf(catalogVersion, lastModified);
+        } finally {
+            for (ReentrantLock stripe : writeStripes) {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private CatalogSnapshot snapshotOf(long version, Instant modified) {
+        return CatalogSnapshot.of(version, modified, productStorage.values(), articleStorage.values(), mappedCatalog);
+    }
+
+    private boolean isInMemory(Searchable item) {
+        return item instanceof Product
+                ? productStorage.containsKey(item.getId())
+                : articleStorage.containsKey(item.getId());
+    }
+
+    private ReentrantLock stripeOf(UUID id) {
+        return writeStripes[stripeIndex(id)];
+    }
+
+    // Полосы без повторов и по возрастанию номера, чтобы пакеты и сборка
+    // снимка всегда брали их в одном порядке
+    private List<ReentrantLock> stripesOf(List<? extends Searchable> items) {
+        BitSet indexes = new BitSet(WRITE_STRIPES);
+        for (Searchable item : items) {
+            indexes.set(stripeIndex(item.getId()));
+        }
+        List<ReentrantLock> stripes = new ArrayList<>(indexes.cardinality());
+        indexes.stream().forEach(index -> stripes.add(writeStripes[index]));
+        return stripes;
+    }
+
+    private static int stripeIndex(UUID id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+    }
+
+    private Product lookupProduct(UUID id) {
+        Product product = productStorage.get(id);
+        if (product == null && mappedCatalog != null) {
+            return mappedCatalog.findProduct(id);
+        }
+        return product;
+    }
+
+    // Сжатие журнала: снимок каталога в памяти заменяет все записи до его
+    // версии. Базовый слой из колоночного файла журнал не хранит
+    @Scheduled(fixedDelayString = "${skyshop.catalog.snapshot-interval:PT5M}")
+    public void snapshotCatalog() {
+        journal.snapshot(getCatalogSnapshot());
+    }
+
+    // При остановке сохраняем снимок, чтобы следующий запуск не разбирал журнал
+    @Override
+    public void destroy() {
+        snapshotCatalog();
+    }
+
+    // Изменение уже в картах, а полоса его ID ещё занята, поэтому изменения
+    // одного элемента публикуются в том же порядке, в котором применялись
+    private CompletableFuture<Void> publish(Searchable previous, Searchable current) {
+        publishLock.lock();
+        try {
+            return catalogChanged(previous, current);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> publish(List<? extends Searchable> previous, List<? extends Searchable> current) {
+        publishLock.lock();
+        try {
+            return catalogChanged(previous, current);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Вызывается только под publishLock, поэтому номера версий, слушатели,
+    // лента и журнал видят изменения в одном и том же порядке
+    private CompletableFuture<Void> catalogChanged(Searchable previous, Searchable current) {
+        catalogVersion++;
+        lastModified = Instant.now();
+        snapshot = null;
+        for (CatalogChangeListener listener : changeListeners) {
+            listener.onSearchableChanged(previous, current);
+        }
+        changeFeed.publish(CatalogChangeEvent.of(catalogVersion, lastModified, previous, current));
+        return current == null
+                ? journal.appendRemoval(catalogVersion, previous)
+                : journal.append(catalogVersion, current);
+    }
+
+    // То же для пакета добавлений: previous.get(i) заменён на current.get(i)
+    private CompletableFuture<Void> catalogChanged(List<? extends Searchable> previous,
+                                                   List<? extends Searchable> current) {
+        long firstSequence = catalogVersion + 1;
+        catalogVersion += current.size();
+        lastModified = Instant.now();
+        snapshot = null;
+        for (CatalogChangeListener listener : changeListeners) {
+            listener.onSearchablesChanged(previous, current);
+        }
+        List<CatalogChangeEvent> events = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            events.add(CatalogChangeEvent.of(firstSequence + i, lastModified, previous.get(i), current.get(i)));
+        }
+        changeFeed.publishAll(events);
+        return journal.appendAll(firstSequence, current);
+    }
+
+    // Ожидание fsync идёт вне блокировок записи: пока один запрос ждёт диск, другие
+    // успевают добавить свои записи, и журнал сохраняет их одной пачкой.
+    // Изменение уже видно читателям, но запрос вернётся только после записи.
+    // Если запись не удалась, изменение остаётся видимым в памяти до
+    // перезапуска, а запрос получает ошибку; все следующие записи журнал
+    // отклоняет в checkWritable, не меняя каталог
+    private static void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Восстановление из журнала идёт в конструкторе, до подписки слушателей
+    private void restore(Searchable item) {
+        if (item instanceof Product product) {
+            productStorage.put(product.getId(), product);
+        } else if (item instanceof Article article) {
+            articleStorage.put(article.getId(), article);
+        }
+    }
+
+    private void restoreRemoval(Searchable item) {
+        if (item instanceof Product) {
+            productStorage.remove(item.getId());
+        } else if (item instanceof Article) {
+            articleStorage.remove(item.getId());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.skypro.skyshop.service.pricing;
+
+import org.skypro.skyshop.model.product.Product;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Неизменяемая таблица цен по акциям. Хранит только товары, на которые
+// сейчас действует акция, остальные продаются по собственной цене товара.
+// Таблица заменяется целиком, поэтому читатели никогда не видят её наполовину
+// обновлённой
+public final class PriceTable {
+    private final Map<UUID, Integer> promotionalPrices;
+    private final long epoch;
+    private final long validUntilMillis;
+    private final long builtAtMillis;
+
+    public PriceTable(Map<UUID, Integer> promotionalPrices, long epoch, long validUntilMillis) {
+        this(promotionalPrices, epoch, validUntilMillis, 0);
+    }
+
+    public PriceTable(Map<UUID, Integer> promotionalPrices, long epoch, long validUntilMillis, long builtAtMillis) {
+        this.promotionalPrices = promotionalPrices;
+        this.epoch = epoch;
+        this.validUntilMillis = validUntilMillis;
+        this.builtAtMillis = builtAtMillis;
+    }
+
+    public int priceOf(Product product) {
+        Integer promotionalPrice = promotionalPrices.get(product.getId());
+        return promotionalPrice == null ? product.getPrice() : promotionalPrice;
+    }
+
+    public int size() {
+        return promotionalPrices.size();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Момент ближайшего начала или окончания акции, после которого таблицу
+    // нужно пересобрать
+    public long getValidUntilMillis() {
+        return validUntilMillis;
+    }
+
+    // Таблица отражает акции на момент сборки, поэтому цены в ней
+    // не могли измениться позже этого момента
+    public long getBuiltAtMillis() {
+        return builtAtMillis;
+    }
+}
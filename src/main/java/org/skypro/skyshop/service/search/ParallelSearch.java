@@ -0,0 +1,90 @@
+package org.skypro.skyshop.service.search;
+
+import org.skypro.skyshop.model.search.SearchResult;
+import org.skypro.skyshop.model.search.Searchable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+@Component
+public class ParallelSearch implements DisposableBean {
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    public ParallelSearch(@Value("${skyshop.search.parallel.enabled:false}") boolean enabled,
+                          @Value("${skyshop.search.parallel.threshold:100000}") int threshold,
+                          @Value("${skyshop.search.parallel.parallelism:0}") int parallelism) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // Отдельный пул, чтобы тяжёлые запросы не занимали общий ForkJoinPool
+        this.pool = enabled ? new ForkJoinPool(this.parallelism) : null;
+    }
+
+    public boolean shouldRun(int candidateCount) {
+        return enabled && candidateCount >= threshold;
+    }
+
+    public List<SearchResult> match(List<? extends Searchable> candidates, String normalizedPattern) {
+        if (pool == null) {
+            throw new IllegalStateException("Параллельный поиск выключен");
+        }
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, candidates.size() / (parallelism * 4));
+        return pool.invoke(new MatchTask(candidates, normalizedPattern, 0, candidates.size(), chunkSize));
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class MatchTask extends RecursiveTask<List<SearchResult>> {
+        private final List<? extends Searchable> candidates;
+        private final String normalizedPattern;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        MatchTask(List<? extends Searchable> candidates, String normalizedPattern, int from, int to, int chunkSize) {
+            this.candidates = candidates;
+            this.normalizedPattern = normalizedPattern;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<SearchResult> compute() {
+            if (to - from <= chunkSize) {
+                List<SearchResult> results = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Searchable item = candidates.get(i);
+                    if (item.getSearchKey().contains(normalizedPattern)) {
+                        results.add(SearchResult.fromSearchable(item));
+                    }
+                }
+                return results;
+            }
+
+            int middle = (from + to) >>> 1;
+            MatchTask left = new MatchTask(candidates, normalizedPattern, from, middle, chunkSize);
+            MatchTask right = new MatchTask(candidates, normalizedPattern, middle, to, chunkSize);
+            left.fork();
+            List<SearchResult> rightResults = right.compute();
+            List<SearchResult> results = left.join();
+            results.addAll(rightResults);
+            return results;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.skypro.skyshop.service.search;
+
+import org.skypro.skyshop.model.search.SearchKey;
+import org.skypro.skyshop.model.search.Searchable;
+
+public final class RelevanceScorer {
+    public static final int NO_MATCH = -1;
+
+    private static final int NAME_MATCH = 1000;
+    private static final int PREFIX_MATCH = 500;
+    private static final int WORD_START_MATCH = 200;
+    private static final int PRODUCT_TYPE = 100;
+    private static final int MAX_POSITION_PENALTY = 99;
+
+    public static final int MAX_SCORE = NAME_MATCH + PREFIX_MATCH + PRODUCT_TYPE;
+
+    private RelevanceScorer() {
+    }
+
+    // Поисковый ключ начинается с имени (название товара, заголовок статьи),
+    // поэтому совпадение левее длины имени считается совпадением в имени,
+    // а правее - в тексте статьи
+    public static int score(Searchable item, String normalizedPattern) {
+        SearchKey key = item.getSearchKey();
+        String term = key.getValue();
+        int position = term.indexOf(normalizedPattern);
+        if (position < 0) {
+            return NO_MATCH;
+        }
+
+        int score = 0;
+        if (position < key.getNameLength()) {
+            score += NAME_MATCH;
+        }
+        if (position == 0) {
+            score += PREFIX_MATCH;
+        } else if (term.charAt(position - 1) == ' ') {
+            score += WORD_START_MATCH;
+        }
+        if ("PRODUCT".equals(item.getContentType())) {
+            score += PRODUCT_TYPE;
+        }
+        return score - Math.min(position, MAX_POSITION_PENALTY);
+    }
+}
@@ -0,0 +1,240 @@
+package org.skypro.skyshop.service.search;
+
+import org.skypro.skyshop.model.search.SearchResult;
+import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.CatalogChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Чтение из кэша не берёт блокировок. Изменения каталога не перебирают
+// записи: каждое изменение получает номер эпохи и попадает в короткий журнал,
+// а запись проверяется по журналу при чтении, начиная с эпохи, до которой
+// она уже была проверена. Запись, отставшая от журнала, считается устаревшей.
+// Вытеснение - по часовому алгоритму: прочитанная запись переживает один
+// проход стрелки
+@Component
+public class SearchCache implements CatalogChangeListener {
+    // Сколько последних изменений каталога помнит журнал
+    static final int CHANGE_LOG_SIZE = 64;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicReferenceArray<Change> changeLog = new AtomicReferenceArray<>(CHANGE_LOG_SIZE);
+    private final Lock changeLock = new ReentrantLock();
+
+    // Вытесняет один поток за раз, остальные не ждут его
+    private final Lock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<String, Entry>> clockHand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchCache(@Value("${skyshop.search.cache.max-size:10000}") int maxSize,
+                       @Value("${skyshop.search.cache.ttl:0s}") Duration ttl) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Размер кэша поиска не может быть отрицательным, получено: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public List<SearchResult> get(String normalizedPattern) {
+        if (maxSize == 0) {
+            misses.increment();
+            return null;
+        }
+        Entry entry = entries.get(normalizedPattern);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entry.createdAt > ttlNanos) {
+            if (entries.remove(normalizedPattern, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        if (!revalidate(normalizedPattern, entry)) {
+            if (entries.remove(normalizedPattern, entry)) {
+                invalidations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.results;
+    }
+
+    // Билет берётся до вычисления результата. Если за время вычисления каталог
+    // изменился так, что результат мог стать другим, put() с этим билетом
+    // ничего не сохранит
+    public long ticket() {
+        return epoch.get();
+    }
+
+    public void put(String normalizedPattern, List<SearchResult> results, long ticket) {
+        if (maxSize == 0) {
+            return;
+        }
+        long current = epoch.get();
+        if (!unaffected(normalizedPattern, ticket, current)) {
+            return;
+        }
+        entries.put(normalizedPattern, new Entry(List.copyOf(results), System.nanoTime(), current));
+        if (entries.size() > maxSize) {
+            evict(normalizedPattern);
+        }
+    }
+
+    // Добавленный или изменённый элемент меняет результат только тех запросов,
+    // шаблон которых встречается в его старом или новом поисковом термине.
+    // Здесь изменение только записывается в журнал: вызов идёт под блокировкой
+    // записи каталога, а сверка шаблонов откладывается до чтения
+    @Override
+    public void onSearchableChanged(Searchable previous, Searchable current) {
+        String previousTerm = previous == null ? null : previous.getSearchKey().getValue();
+        String currentTerm = current == null ? null : current.getSearchKey().getValue();
+        recordChange(previousTerm, currentTerm, false);
+    }
+
+    // Проверять каждый шаблон против каждого термина пакета дороже, чем
+    // заново выполнить закэшированные запросы, поэтому пакет делает
+    // устаревшими все записи сразу
+    @Override
+    public void onSearchablesChanged(List<? extends Searchable> previous, List<? extends Searchable> current) {
+        recordChange(null, null, true);
+    }
+
+    public SearchCacheStats getStats() {
+        return new SearchCacheStats(
+                entries.size(),
+                maxSize,
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                expirations.sum(),
+                invalidations.sum()
+        );
+    }
+
+    private void recordChange(String previousTerm, String currentTerm, boolean all) {
+        changeLock.lock();
+        try {
+            // Сначала запись в журнал, потом новая эпоха: читатель, увидевший
+            // эпоху, видит и изменение с этим номером
+            long next = epoch.get() + 1;
+            changeLog.set((int) (next % CHANGE_LOG_SIZE), new Change(next, previousTerm, currentTerm, all));
+            epoch.set(next);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private boolean revalidate(String pattern, Entry entry) {
+        long checked = entry.epoch;
+        long current = epoch.get();
+        if (checked == current) {
+            return true;
+        }
+        if (!unaffected(pattern, checked, current)) {
+            return false;
+        }
+        entry.epoch = current;
+        return true;
+    }
+
+    // Не было ли после эпохи from и до эпохи to изменений, затрагивающих шаблон
+    private boolean unaffected(String pattern, long from, long to) {
+        if (to - from >= CHANGE_LOG_SIZE) {
+            return false;
+        }
+        for (long number = from + 1; number <= to; number++) {
+            Change change = changeLog.get((int) (number % CHANGE_LOG_SIZE));
+            // Запись уже перезаписана более новым изменением
+            if (change == null || change.epoch() != number || change.affects(pattern)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Стрелка обходит записи по кругу: прочитанная с прошлого прохода запись
+    // теряет отметку и остаётся, непрочитанная или устаревшая удаляется.
+    // Только что добавленную запись стрелка не трогает
+    private void evict(String justAdded) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int laps = 0;
+            while (entries.size() > maxSize && laps <= 2) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = entries.entrySet().iterator();
+                    laps++;
+                    continue;
+                }
+                Map.Entry<String, Entry> candidate = clockHand.next();
+                String pattern = candidate.getKey();
+                Entry entry = candidate.getValue();
+                if (pattern.equals(justAdded)) {
+                    continue;
+                }
+                if (!revalidate(pattern, entry)) {
+                    if (entries.remove(pattern, entry)) {
+                        invalidations.increment();
+                    }
+                } else if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(pattern, entry)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final List<SearchResult> results;
+        private final long createdAt;
+        // Эпоха, до которой запись проверена по журналу изменений
+        private volatile long epoch;
+        private volatile boolean referenced;
+
+        private Entry(List<SearchResult> results, long createdAt, long epoch) {
+            this.results = results;
+            this.createdAt = createdAt;
+            this.epoch = epoch;
+        }
+    }
+
+    private record Change(long epoch, String previousTerm, String currentTerm, boolean all) {
+        boolean affects(String pattern) {
+            return all
+                    || (previousTerm != null && previousTerm.contains(pattern))
+                    || (currentTerm != null && currentTerm.contains(pattern));
+        }
+    }
+}
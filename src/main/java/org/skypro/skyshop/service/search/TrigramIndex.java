@@ -0,0 +1,283 @@
+package org.skypro.skyshop.service.search;
+
+import org.skypro.skyshop.model.search.SearchKey;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Индекс разбит на шарды по ID элемента. У каждого шарда свой писатель, поэтому
+// записи разных элементов идут параллельно, а чтение не берёт блокировок:
+// списки и массивы только дописываются и публикуются через volatile, а
+// сжатие собирает новое поколение шарда и подменяет его целиком
+public class TrigramIndex {
+    public static final int GRAM_LENGTH = SearchKey.TRIGRAM_LENGTH;
+    static final int SHARDS = 16;
+
+    private final Shard[] shards;
+    // Общий порядок добавления: по нему сливаются кандидаты из разных шардов
+    private final AtomicLong sequence;
+
+    public TrigramIndex() {
+        this.shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        this.sequence = new AtomicLong();
+    }
+
+    public static boolean isIndexable(String pattern) {
+        return pattern != null && pattern.length() >= GRAM_LENGTH;
+    }
+
+    public void add(Searchable item) {
+        Shard shard = shardOf(item);
+        shard.lock.lock();
+        try {
+            shard.add(item, sequence.incrementAndGet());
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public void addAll(Collection<? extends Searchable> items) {
+        for (Searchable item : items) {
+            add(item);
+        }
+    }
+
+    public void remove(Searchable item) {
+        Shard shard = shardOf(item);
+        shard.lock.lock();
+        try {
+            shard.remove(item);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.liveCount;
+        }
+        return size;
+    }
+
+    // Возвращает надмножество точных совпадений в порядке добавления: порядок
+    // триграмм не проверяется, поэтому вызывающий код всё равно фильтрует
+    // результат через contains()
+    public List<Searchable> candidates(String normalizedPattern) {
+        if (!isIndexable(normalizedPattern)) {
+            throw new IllegalArgumentException("Шаблон короче " + GRAM_LENGTH + " символов не индексируется");
+        }
+        long[] grams = new long[normalizedPattern.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = SearchKey.trigram(normalizedPattern, i);
+        }
+
+        Document[][] found = new Document[SHARDS][];
+        int total = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            found[i] = shards[i].generation.candidates(grams);
+            total += found[i].length;
+        }
+        return mergeBySequence(found, total);
+    }
+
+    // В каждом шарде кандидаты уже идут в порядке добавления
+    private static List<Searchable> mergeBySequence(Document[][] found, int total) {
+        List<Searchable> candidates = new ArrayList<>(total);
+        int[] positions = new int[found.length];
+        for (int added = 0; added < total; added++) {
+            int next = -1;
+            for (int i = 0; i < found.length; i++) {
+                if (positions[i] < found[i].length
+                        && (next < 0 || found[i][positions[i]].sequence() < found[next][positions[next]].sequence())) {
+                    next = i;
+                }
+            }
+            candidates.add(found[next][positions[next]++].item());
+        }
+        return candidates;
+    }
+
+    private Shard shardOf(Searchable item) {
+        int hash = Objects.requireNonNull(item.getId()).hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Читается и меняется только писателем под lock
+        private final Map<DocumentKey, Integer> ordinals = new HashMap<>();
+        private volatile Generation generation = new Generation(16);
+        private volatile int liveCount;
+
+        void add(Searchable item, long sequence) {
+            Generation current = generation;
+            DocumentKey key = DocumentKey.of(item);
+            Integer previous = ordinals.remove(key);
+            if (previous != null) {
+                current.documents[previous] = null;
+                liveCount--;
+            }
+            ordinals.put(key, current.append(new Document(item, sequence)));
+            liveCount++;
+
+            if (current.documentCount - liveCount > Math.max(1024, liveCount)) {
+                compact(current);
+            }
+        }
+
+        void remove(Searchable item) {
+            Integer ordinal = ordinals.remove(DocumentKey.of(item));
+            if (ordinal != null) {
+                generation.documents[ordinal] = null;
+                liveCount--;
+            }
+        }
+
+        // Новое поколение собирается рядом со старым, читатели старого
+        // поколения дочитывают его без помех
+        private void compact(Generation current) {
+            Generation compacted = new Generation(Math.max(16, liveCount * 2));
+            ordinals.clear();
+            for (int i = 0; i < current.documentCount; i++) {
+                Document document = current.documents[i];
+                if (document != null) {
+                    ordinals.put(DocumentKey.of(document.item()), compacted.append(document));
+                }
+            }
+            generation = compacted;
+        }
+    }
+
+    private static final class Generation {
+        private final Map<Long, PostingList> postings = new ConcurrentHashMap<>();
+        private volatile Document[] documents;
+        // Меняется только писателем
+        private int documentCount;
+
+        Generation(int capacity) {
+            this.documents = new Document[capacity];
+        }
+
+        // Документ записывается в массив до того, как его номер появится в
+        // списках: читатель, увидевший номер, видит и документ
+        int append(Document document) {
+            int ordinal = documentCount++;
+            Document[] current = documents;
+            if (ordinal == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                documents = current;
+            }
+            current[ordinal] = document;
+
+            String term = document.item().getSearchKey().getValue();
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                postings.computeIfAbsent(SearchKey.trigram(term, i), g -> new PostingList()).add(ordinal);
+            }
+            return ordinal;
+        }
+
+        Document[] candidates(long[] grams) {
+            PostingView[] lists = new PostingView[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                PostingList list = postings.get(grams[i]);
+                if (list == null) {
+                    return new Document[0];
+                }
+                lists[i] = list.view();
+            }
+            Arrays.sort(lists, Comparator.comparingInt(PostingView::size));
+
+            int[] result = Arrays.copyOf(lists[0].ordinals(), lists[0].size());
+            int resultSize = result.length;
+            for (int i = 1; i < lists.length && resultSize > 0; i++) {
+                resultSize = lists[i].retainAll(result, resultSize);
+            }
+
+            Document[] current = documents;
+            Document[] found = new Document[resultSize];
+            int count = 0;
+            for (int i = 0; i < resultSize; i++) {
+                Document document = current[result[i]];
+                if (document != null) {
+                    found[count++] = document;
+                }
+            }
+            return count == resultSize ? found : Arrays.copyOf(found, count);
+        }
+
+    }
+
+    private static final class PostingList {
+        private volatile int[] ordinals = new int[4];
+        private volatile int size;
+
+        // Только писатель шарда. Новый массив публикуется раньше размера,
+        // поэтому первые size элементов есть в любом массиве, который
+        // читатель увидит после чтения размера
+        void add(int ordinal) {
+            int currentSize = size;
+            int[] current = ordinals;
+            // Один элемент может содержать триграмму несколько раз, а порядковые
+            // номера выдаются по возрастанию, поэтому дубликат всегда в конце
+            if (currentSize > 0 && current[currentSize - 1] == ordinal) {
+                return;
+            }
+            if (currentSize == current.length) {
+                current = Arrays.copyOf(current, currentSize * 2);
+                ordinals = current;
+            }
+            current[currentSize] = ordinal;
+            size = currentSize + 1;
+        }
+
+        PostingView view() {
+            int currentSize = size;
+            return new PostingView(ordinals, currentSize);
+        }
+    }
+
+    // Список на момент чтения: писатель дописывает только за size
+    private record PostingView(int[] ordinals, int size) {
+        int retainAll(int[] sorted, int sortedSize) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < sortedSize; i++) {
+                int position = Arrays.binarySearch(ordinals, from, size, sorted[i]);
+                if (position >= 0) {
+                    sorted[kept++] = sorted[i];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+                if (from == size) {
+                    break;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private record Document(Searchable item, long sequence) {
+    }
+
+    private record DocumentKey(String contentType, UUID id) {
+        static DocumentKey of(Searchable item) {
+            return new DocumentKey(item.getContentType(), Objects.requireNonNull(item.getId()));
+        }
+    }
+}
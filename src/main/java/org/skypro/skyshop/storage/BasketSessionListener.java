@@ -0,0 +1,19 @@
+package org.skypro.skyshop.storage;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BasketSessionListener implements HttpSessionListener {
+    private final BasketStore basketStore;
+
+    public BasketSessionListener(BasketStore basketStore) {
+        this.basketStore = basketStore;
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        basketStore.remove(event.getSession().getId());
+    }
+}
@@ -0,0 +1,128 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.basket.BasketTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Base64;
+
+// Постоянный уровень хранилища корзин: по файлу на корзину в одном каталоге.
+// Имя файла - ключ корзины в base64url, запись через временный файл и
+// атомарное переименование, чтобы при сбое не остался половинчатый файл
+class BasketSpillFiles {
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".basket";
+    private static final String TEMPORARY_PREFIX = "basket";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    BasketSpillFiles(Path directory) {
+        this.directory = directory;
+    }
+
+    void write(String basketKey, BasketTable table) {
+        try {
+            Files.createDirectories(directory);
+            Path target = file(basketKey);
+            Path temporary = Files.createTempFile(directory, TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(table.size());
+                table.forEach((msb, lsb, quantity, unitPrice) -> {
+                    try {
+                        output.writeLong(msb);
+                        output.writeLong(lsb);
+                        output.writeInt(quantity);
+                        output.writeInt(unitPrice);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить корзину " + basketKey, e);
+        }
+    }
+
+    // null, если корзина на диск не выгружалась
+    BasketTable read(String basketKey) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(basketKey))))) {
+            int version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Неизвестная версия формата корзины: " + version);
+            }
+            int size = input.readInt();
+            BasketTable table = new BasketTable();
+            for (int i = 0; i < size; i++) {
+                long msb = input.readLong();
+                long lsb = input.readLong();
+                int quantity = input.readInt();
+                int unitPrice = input.readInt();
+                table.add(msb, lsb, unitPrice, quantity);
+            }
+            return table;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить корзину " + basketKey, e);
+        }
+    }
+
+    void delete(String basketKey) {
+        try {
+            Files.deleteIfExists(file(basketKey));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось удалить корзину " + basketKey, e);
+        }
+    }
+
+    // Удаляет файлы корзин и недописанные временные файлы, изменённые раньше
+    // cutoff. Instant.MAX удаляет всё. Возвращает число удалённых файлов
+    int deleteModifiedBefore(Instant cutoff) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, BasketSpillFiles::isSpillFile)) {
+            for (Path file : files) {
+                try {
+                    FileTime modified = Files.getLastModifiedTime(file);
+                    if (modified.toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Файл успели удалить или перезаписать параллельно
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось очистить каталог корзин " + directory, e);
+        }
+        return deleted;
+    }
+
+    private static boolean isSpillFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SUFFIX) || (name.startsWith(TEMPORARY_PREFIX) && name.endsWith(TEMPORARY_SUFFIX));
+    }
+
+    private Path file(String basketKey) {
+        String name = Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(basketKey.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(name + SUFFIX);
+    }
+}
@@ -0,0 +1,16 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.basket.BasketTable;
+
+import java.util.function.Function;
+
+public interface BasketStore {
+
+    // Выполняет действие над корзиной атомарно: параллельные запросы одной
+    // сессии к этой корзине выполняются по очереди, к разным - независимо.
+    // Корзина при необходимости загружается из постоянного хранилища или
+    // создаётся пустой. Ссылку на таблицу нельзя сохранять за пределами действия
+    <R> R withBasket(String basketKey, Function<BasketTable, R> action);
+
+    void remove(String basketKey);
+}
@@ -0,0 +1,43 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface CatalogJournal {
+
+    // Передаёт сохранённые изменения каталога в порядке их записи: сначала
+    // снимок, затем хвост журнала. Удалённые элементы приходят в removed.
+    // Возвращает номер последней восстановленной записи или 0, если каталог
+    // ещё не сохранялся
+    long recover(Consumer<Searchable> restored, Consumer<Searchable> removed);
+
+    // Записи добавляются строго в порядке номеров. Будущее завершается,
+    // когда запись гарантированно сохранена на диске
+    CompletableFuture<Void> append(long sequence, Searchable item);
+
+    CompletableFuture<Void> appendRemoval(long sequence, Searchable item);
+
+    // Записи items получают номера firstSequence, firstSequence + 1 и т.д.
+    // Будущее завершается, когда на диске сохранён весь пакет
+    default CompletableFuture<Void> appendAll(long firstSequence, List<? extends Searchable> items) {
+        CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < items.size(); i++) {
+            done = append(firstSequence + i, items.get(i));
+        }
+        return done;
+    }
+
+    // Бросает исключение, если журнал больше не может сохранять записи.
+    // Вызывается до изменения каталога, чтобы не применять то, что уже
+    // заведомо не попадёт на диск
+    default void checkWritable() {
+    }
+
+    // Сохраняет полный снимок каталога, после чего журнал до snapshot.getVersion()
+    // больше не нужен для восстановления
+    void snapshot(CatalogSnapshot snapshot);
+}
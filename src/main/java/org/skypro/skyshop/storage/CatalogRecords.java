@@ -0,0 +1,98 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.FixPriceProduct;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// Двоичное представление элементов каталога, общее для журнала и снимков.
+// Первый байт - тип записи, затем ID и поля конкретного класса. Строки
+// хранятся как длина + UTF-8, потому что writeUTF ограничен 64 КБ
+final class CatalogRecords {
+    static final byte SIMPLE_PRODUCT = 1;
+    static final byte DISCOUNTED_PRODUCT = 2;
+    static final byte FIX_PRICE_PRODUCT = 3;
+    static final byte ARTICLE = 4;
+    // Удаление в журнале: маркер, за которым следует запись удалённого элемента,
+    // чтобы при загрузке было понятно, из какой коллекции его убрать
+    static final byte REMOVED = 5;
+
+    private CatalogRecords() {
+    }
+
+    static void write(DataOutput output, Searchable item) throws IOException {
+        if (item instanceof SimpleProduct product) {
+            writeHeader(output, SIMPLE_PRODUCT, product.getId());
+            writeString(output, product.getName());
+            output.writeInt(product.getPrice());
+        } else if (item instanceof DiscountedProduct product) {
+            writeHeader(output, DISCOUNTED_PRODUCT, product.getId());
+            writeString(output, product.getName());
+            output.writeInt(product.getBasePrice());
+            output.writeInt(product.getDiscountPercent());
+        } else if (item instanceof FixPriceProduct product) {
+            writeHeader(output, FIX_PRICE_PRODUCT, product.getId());
+            writeString(output, product.getName());
+        } else if (item instanceof Article article) {
+            writeHeader(output, ARTICLE, article.getId());
+            writeString(output, article.getTitle());
+            writeString(output, article.getText());
+        } else {
+            throw new IllegalArgumentException("Неизвестный тип элемента каталога: " + item.getClass().getName());
+        }
+    }
+
+    static void writeRemoval(DataOutput output, Searchable item) throws IOException {
+        output.writeByte(REMOVED);
+        write(output, item);
+    }
+
+    static boolean isRemoval(byte[] payload) {
+        return payload.length > 0 && payload[0] == REMOVED;
+    }
+
+    static Searchable read(DataInput input) throws IOException {
+        byte type = input.readByte();
+        UUID id = new UUID(input.readLong(), input.readLong());
+        return switch (type) {
+            case SIMPLE_PRODUCT -> new SimpleProduct(id, readString(input), input.readInt());
+            case DISCOUNTED_PRODUCT -> new DiscountedProduct(id, readString(input), input.readInt(), input.readInt());
+            case FIX_PRICE_PRODUCT -> new FixPriceProduct(id, readString(input));
+            case ARTICLE -> new Article(id, readString(input), readString(input));
+            default -> throw new IOException("Неизвестный тип записи каталога: " + type);
+        };
+    }
+
+    private static void writeHeader(DataOutput output, byte type, UUID id) throws IOException {
+        output.writeByte(type);
+        output.writeLong(id.getMostSignificantBits());
+        output.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
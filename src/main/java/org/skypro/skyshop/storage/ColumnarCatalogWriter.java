@@ -0,0 +1,245 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.FixPriceProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.SearchKey;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Записывает каталог в колоночный файл для MappedCatalog. Формат описан там же.
+// Снимок читается несколько раз, по разу на колонку, поэтому сначала
+// копируется в списки: элементы базового слоя иначе создавались бы заново
+public final class ColumnarCatalogWriter {
+
+    private ColumnarCatalogWriter() {
+    }
+
+    public static void write(Path target, CatalogSnapshot snapshot) {
+        write(target, snapshot, MappedCatalog.MAX_FILE_SIZE);
+    }
+
+    static void write(Path target, CatalogSnapshot snapshot, long maxFileSize) {
+        List<Product> products = new ArrayList<>(snapshot.getProducts());
+        List<Article> articles = new ArrayList<>(snapshot.getArticles());
+        List<String> searchKeys = new ArrayList<>(products.size() + articles.size());
+        byte[][] names = new byte[products.size()][];
+        byte[][] productKeys = new byte[products.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = utf8(products.get(i).getName());
+            searchKeys.add(products.get(i).getSearchKey().getValue());
+            productKeys[i] = utf8(searchKeys.get(i));
+        }
+        // У статьи две строки подряд: заголовок и текст
+        byte[][] texts = new byte[articles.size() * 2][];
+        byte[][] articleKeys = new byte[articles.size()][];
+        for (int i = 0; i < articles.size(); i++) {
+            texts[2 * i] = utf8(articles.get(i).getTitle());
+            texts[2 * i + 1] = utf8(articles.get(i).getText());
+            searchKeys.add(articles.get(i).getSearchKey().getValue());
+            articleKeys[i] = utf8(searchKeys.get(products.size() + i));
+        }
+        TrigramPostings index = TrigramPostings.build(searchKeys);
+
+        try {
+            // Размер считается заранее в long: DataOutputStream.size() на
+            // больших файлах застревает на Integer.MAX_VALUE, а смещения в
+            // файле int, поэтому больший файл записался бы с обрезанными смещениями
+            long fileSize = fileSize(products.size(), articles.size(), index, names, texts, productKeys, articleKeys);
+            if (fileSize > maxFileSize) {
+                throw new IOException("Колоночный файл каталога занял бы " + fileSize
+                        + " байт, больше допустимых " + maxFileSize);
+            }
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "catalog", ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                output.writeInt(MappedCatalog.MAGIC);
+                output.writeInt(MappedCatalog.FORMAT_VERSION);
+                output.writeInt(products.size());
+                output.writeInt(articles.size());
+                output.writeInt(index.grams.length);
+
+                for (Product product : products) {
+                    output.writeLong(product.getId().getMostSignificantBits());
+                }
+                for (Product product : products) {
+                    output.writeLong(product.getId().getLeastSignificantBits());
+                }
+                for (Product product : products) {
+                    output.writeInt(kindOf(product));
+                }
+                for (Product product : products) {
+                    output.writeInt(product instanceof DiscountedProduct discounted ? discounted.getBasePrice() : product.getPrice());
+                }
+                for (Product product : products) {
+                    output.writeInt(product instanceof DiscountedProduct discounted ? discounted.getDiscountPercent() : 0);
+                }
+                writeOffsets(output, names);
+                writeOffsets(output, productKeys);
+
+                for (Article article : articles) {
+                    output.writeLong(article.getId().getMostSignificantBits());
+                }
+                for (Article article : articles) {
+                    output.writeLong(article.getId().getLeastSignificantBits());
+                }
+                writeOffsets(output, texts);
+                writeOffsets(output, articleKeys);
+
+                writeHeap(output, names);
+                writeHeap(output, texts);
+                writeHeap(output, productKeys);
+                writeHeap(output, articleKeys);
+
+                for (long gram : index.grams) {
+                    output.writeLong(gram);
+                }
+                for (int offset : index.offsets) {
+                    output.writeInt(offset);
+                }
+                for (int row : index.rows) {
+                    output.writeInt(row);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать колоночный каталог " + target, e);
+        }
+    }
+
+    // Та же раскладка, что читает MappedCatalog
+    private static long fileSize(int productCount, int articleCount, TrigramPostings index, byte[][]... heaps) {
+        long size = 5L * Integer.BYTES
+                + (long) productCount * (2 * Long.BYTES + 3 * Integer.BYTES)
+                + 2 * (productCount + 1L) * Integer.BYTES
+                + (long) articleCount * 2 * Long.BYTES
+                + (2L * articleCount + 1) * Integer.BYTES
+                + (articleCount + 1L) * Integer.BYTES
+                + (long) index.grams.length * Long.BYTES
+                + (index.grams.length + 1L) * Integer.BYTES
+                + (long) index.rows.length * Integer.BYTES;
+        for (byte[][] heap : heaps) {
+            for (byte[] string : heap) {
+                size += string.length;
+            }
+        }
+        return size;
+    }
+
+    private static int kindOf(Product product) {
+        if (product instanceof SimpleProduct) {
+            return MappedCatalog.SIMPLE_PRODUCT;
+        }
+        if (product instanceof DiscountedProduct) {
+            return MappedCatalog.DISCOUNTED_PRODUCT;
+        }
+        if (product instanceof FixPriceProduct) {
+            return MappedCatalog.FIX_PRICE_PRODUCT;
+        }
+        throw new IllegalArgumentException("Неизвестный тип продукта: " + product.getClass().getName());
+    }
+
+    // Смещения строк в куче: строка i занимает [offsets[i], offsets[i + 1])
+    private static void writeOffsets(DataOutputStream output, byte[][] strings) throws IOException {
+        long offset = 0;
+        output.writeInt(0);
+        for (byte[] string : strings) {
+            offset += string.length;
+            output.writeInt(Math.toIntExact(offset));
+        }
+    }
+
+    private static void writeHeap(DataOutputStream output, byte[][] strings) throws IOException {
+        for (byte[] string : strings) {
+            output.write(string);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Триграммный индекс поисковых ключей: строка r - товар r или статья
+    // r - P. Пары (номер триграммы, строка) сортируются одним массивом long,
+    // поэтому списки строк получаются возрастающими и без повторов
+    private static final class TrigramPostings {
+        private final long[] grams;
+        private final int[] offsets;
+        private final int[] rows;
+
+        private TrigramPostings(long[] grams, int[] offsets, int[] rows) {
+            this.grams = grams;
+            this.offsets = offsets;
+            this.rows = rows;
+        }
+
+        static TrigramPostings build(List<String> keys) {
+            Map<Long, Integer> gramIds = new HashMap<>();
+            long[] pairs = new long[Math.max(16, keys.size() * 8)];
+            int pairCount = 0;
+            for (int row = 0; row < keys.size(); row++) {
+                String key = keys.get(row);
+                for (int i = 0; i + SearchKey.TRIGRAM_LENGTH <= key.length(); i++) {
+                    Integer id = gramIds.get(SearchKey.trigram(key, i));
+                    if (id == null) {
+                        id = gramIds.size();
+                        gramIds.put(SearchKey.trigram(key, i), id);
+                    }
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[pairCount++] = ((long) id << 32) | row;
+                }
+            }
+
+            // Номера триграмм в порядке появления заменяются номерами в
+            // отсортированном списке, который читатель ищет бинарным поиском
+            long[] grams = new long[gramIds.size()];
+            gramIds.forEach((gram, id) -> grams[id] = gram);
+            long[] sortedGrams = grams.clone();
+            Arrays.sort(sortedGrams);
+            int[] rank = new int[grams.length];
+            for (int id = 0; id < grams.length; id++) {
+                rank[id] = Arrays.binarySearch(sortedGrams, grams[id]);
+            }
+            for (int i = 0; i < pairCount; i++) {
+                pairs[i] = ((long) rank[(int) (pairs[i] >>> 32)] << 32) | (pairs[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs, 0, pairCount);
+
+            int[] offsets = new int[grams.length + 1];
+            int[] rows = new int[pairCount];
+            int rowCount = 0;
+            for (int i = 0; i < pairCount; i++) {
+                if (i > 0 && pairs[i] == pairs[i - 1]) {
+                    continue;
+                }
+                offsets[(int) (pairs[i] >>> 32) + 1]++;
+                rows[rowCount++] = (int) pairs[i];
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            return new TrigramPostings(sortedGrams, offsets, Arrays.copyOf(rows, rowCount));
+        }
+    }
+}
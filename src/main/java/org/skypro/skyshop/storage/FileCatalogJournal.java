@@ -0,0 +1,466 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.search.Searchable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Каталог на диске: журнал изменений из сегментов плюс последний сжатый снимок.
+// Сегмент journal-<N>.log начинается с записи номер N, каждая запись -
+// [длина][номер][данные][CRC32], поэтому оборванный при сбое хвост
+// распознаётся и отрезается при загрузке. Записи пишет один поток: всё, что
+// накопилось в очереди, попадает на диск одной пачкой с одним fsync
+@Component
+@ConditionalOnProperty(name = "skyshop.catalog.store", havingValue = "file")
+public class FileCatalogJournal implements CatalogJournal, DisposableBean {
+    private static final int SNAPSHOT_MAGIC = 0x534B5953;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_BATCH = 8192;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final BlockingQueue<JournalTask> tasks;
+    private final Thread writer;
+    private volatile long lastSnapshotSequence;
+    // После ошибки записи журнал больше ничего не принимает: пропуск записи
+    // посреди журнала сделал бы восстановление неверным
+    private volatile UncheckedIOException failure;
+
+    // Состояние ниже меняет только поток записи (и recover до первой записи)
+    private final List<Segment> closedSegments;
+    private FileChannel segmentChannel;
+    private DataOutputStream segmentOutput;
+    private Path segmentPath;
+    private long segmentLastSequence;
+
+    public FileCatalogJournal(@Value("${skyshop.catalog.data-dir:${java.io.tmpdir}/skyshop-catalog}") Path directory) {
+        this.directory = directory;
+        this.tasks = new LinkedBlockingQueue<>();
+        this.closedSegments = new ArrayList<>();
+        this.writer = new Thread(this::writeLoop, "catalog-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public long recover(Consumer<Searchable> restored, Consumer<Searchable> removed) {
+        try {
+            Files.createDirectories(directory);
+            long sequence = loadSnapshot(restored);
+            lastSnapshotSequence = sequence;
+
+            List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            for (int i = 0; i < segments.size(); i++) {
+                Path segment = segments.get(i);
+                long segmentLast = replaySegment(segment, sequence, restored, removed, i == segments.size() - 1);
+                if (segmentLast < 0) {
+                    Files.delete(segment);
+                    continue;
+                }
+                closedSegments.add(new Segment(segment, segmentLast));
+                sequence = Math.max(sequence, segmentLast);
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить каталог из " + directory, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> append(long sequence, Searchable item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            CatalogRecords.write(new DataOutputStream(bytes), item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return enqueue(sequence, bytes);
+    }
+
+    @Override
+    public CompletableFuture<Void> appendRemoval(long sequence, Searchable item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            CatalogRecords.writeRemoval(new DataOutputStream(bytes), item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return enqueue(sequence, bytes);
+    }
+
+    // Пакет уходит в очередь одной операцией. Записи пишутся по порядку, а
+    // ошибка любой из них отклоняет все следующие, поэтому ждать достаточно
+    // последней записи; остальные делят одно будущее, которое никто не читает
+    @Override
+    public CompletableFuture<Void> appendAll(long firstSequence, List<? extends Searchable> items) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        List<Append> appends = new ArrayList<>(items.size());
+        CompletableFuture<Void> intermediate = new CompletableFuture<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                bytes.reset();
+                CatalogRecords.write(output, items.get(i));
+                appends.add(new Append(firstSequence + i, bytes.toByteArray(),
+                        i == items.size() - 1 ? done : intermediate));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        tasks.addAll(appends);
+        return done;
+    }
+
+    @Override
+    public void checkWritable() {
+        UncheckedIOException current = failure;
+        if (current != null) {
+            throw current;
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(long sequence, ByteArrayOutputStream bytes) {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        tasks.add(new Append(sequence, bytes.toByteArray(), done));
+        return done;
+    }
+
+    // Снимок пишется во временный файл и атомарно переименовывается, затем
+    // поток записи закрывает текущий сегмент и удаляет покрытые снимком
+    @Override
+    public void snapshot(CatalogSnapshot snapshot) {
+        long sequence = snapshot.getVersion();
+        if (sequence <= lastSnapshotSequence) {
+            return;
+        }
+        try {
+            Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+                CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32());
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(checked, BUFFER_SIZE));
+                output.writeInt(SNAPSHOT_MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(sequence);
+                // Базовый слой из колоночного файла в снимок не копируется,
+                // иначе при загрузке он целиком оказался бы в куче
+                output.writeInt(snapshot.getMemoryProducts().size() + snapshot.getMemoryArticles().size());
+                for (Searchable item : snapshot.getMemoryProducts()) {
+                    CatalogRecords.write(output, item);
+                }
+                for (Searchable item : snapshot.getMemoryArticles()) {
+                    CatalogRecords.write(output, item);
+                }
+                output.flush();
+                new DataOutputStream(file).writeInt((int) checked.getChecksum().getValue());
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, snapshotPath(sequence), StandardCopyOption.ATOMIC_MOVE);
+            // Переименование должно попасть на диск раньше, чем удалятся
+            // сегменты и старый снимок, иначе после сбоя не останется ничего
+            syncDirectory();
+            lastSnapshotSequence = sequence;
+            for (Path older : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (sequenceOf(older, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < sequence) {
+                    Files.delete(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить снимок каталога", e);
+        }
+
+        CompletableFuture<Void> rolled = new CompletableFuture<>();
+        tasks.add(new Roll(sequence, rolled));
+        rolled.join();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        tasks.add(new Stop());
+        writer.join();
+    }
+
+    private void writeLoop() {
+        List<JournalTask> batch = new ArrayList<>();
+        while (true) {
+            try {
+                JournalTask next = tasks.take();
+                if (failure != null) {
+                    next.fail(failure);
+                    if (next instanceof Stop) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(next);
+            } catch (InterruptedException e) {
+                return;
+            }
+            tasks.drainTo(batch, MAX_BATCH - 1);
+
+            List<CompletableFuture<Void>> written = new ArrayList<>(batch.size());
+            boolean stop = false;
+            int processed = 0;
+            try {
+                for (JournalTask task : batch) {
+                    if (task instanceof Append append) {
+                        writeRecord(append);
+                        written.add(append.done());
+                    } else if (task instanceof Roll roll) {
+                        sync(written);
+                        rollSegment(roll.snapshotSequence());
+                        roll.done().complete(null);
+                    } else {
+                        stop = true;
+                    }
+                    processed++;
+                }
+                sync(written);
+            } catch (IOException | RuntimeException e) {
+                failure = new UncheckedIOException("Не удалось записать журнал каталога",
+                        e instanceof IOException io ? io : new IOException(e));
+                written.forEach(done -> done.completeExceptionally(failure));
+                for (JournalTask task : batch.subList(processed, batch.size())) {
+                    task.fail(failure);
+                    stop |= task instanceof Stop;
+                }
+                // Частично записанный сегмент закрываем, оборванная запись
+                // будет отрезана при следующей загрузке
+                closeSegmentQuietly();
+            }
+            batch.clear();
+            if (stop) {
+                closeSegmentQuietly();
+                return;
+            }
+        }
+    }
+
+    private void writeRecord(Append append) throws IOException {
+        if (segmentOutput == null) {
+            segmentPath = segmentPath(append.sequence());
+            segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            segmentOutput = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(segmentChannel), BUFFER_SIZE));
+            // fsync сегмента не сохраняет запись о новом файле в каталоге
+            syncDirectory();
+        }
+        segmentOutput.writeInt(append.payload().length);
+        segmentOutput.writeLong(append.sequence());
+        segmentOutput.write(append.payload());
+        segmentOutput.writeInt(checksum(append.sequence(), append.payload()));
+        segmentLastSequence = append.sequence();
+    }
+
+    // Один fsync на всю пачку - в этом и состоит групповая фиксация
+    private void sync(List<CompletableFuture<Void>> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        segmentOutput.flush();
+        segmentChannel.force(false);
+        written.forEach(done -> done.complete(null));
+        written.clear();
+    }
+
+    private void rollSegment(long snapshotSequence) throws IOException {
+        if (segmentOutput != null) {
+            segmentOutput.close();
+            closedSegments.add(new Segment(segmentPath, segmentLastSequence));
+            segmentOutput = null;
+            segmentChannel = null;
+        }
+        for (var iterator = closedSegments.iterator(); iterator.hasNext(); ) {
+            Segment segment = iterator.next();
+            if (segment.lastSequence() <= snapshotSequence) {
+                Files.deleteIfExists(segment.path());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void closeSegmentQuietly() {
+        if (segmentOutput == null) {
+            return;
+        }
+        try {
+            segmentOutput.close();
+        } catch (IOException ignored) {
+            // Сегмент уже повреждён, его хвост отрежет загрузка
+        }
+        closedSegments.add(new Segment(segmentPath, segmentLastSequence));
+        segmentOutput = null;
+        segmentChannel = null;
+    }
+
+    private long loadSnapshot(Consumer<Searchable> sink) throws IOException {
+        List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Path latest = snapshots.get(snapshots.size() - 1);
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(latest), BUFFER_SIZE)) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32());
+            DataInputStream input = new DataInputStream(checked);
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Неизвестный формат снимка " + latest);
+            }
+            long sequence = input.readLong();
+            int count = input.readInt();
+            // Элементы отдаются только после проверки контрольной суммы всего файла
+            List<Searchable> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(CatalogRecords.read(input));
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("Снимок каталога повреждён: " + latest);
+            }
+            items.forEach(sink);
+            return sequence;
+        }
+    }
+
+    // Возвращает номер последней записи сегмента или -1, если целых записей в нём нет
+    private long replaySegment(Path segment, long afterSequence, Consumer<Searchable> restored,
+                               Consumer<Searchable> removed, boolean last) throws IOException {
+        long lastSequence = -1;
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), BUFFER_SIZE))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    return lastSequence;
+                }
+                try {
+                    if (length < 0 || length > MAX_RECORD_SIZE) {
+                        throw new IOException("Некорректная длина записи: " + length);
+                    }
+                    long sequence = input.readLong();
+                    byte[] payload = new byte[length];
+                    input.readFully(payload);
+                    if (input.readInt() != checksum(sequence, payload)) {
+                        throw new IOException("Контрольная сумма записи " + sequence + " не совпадает");
+                    }
+                    if (sequence > afterSequence && CatalogRecords.isRemoval(payload)) {
+                        removed.accept(CatalogRecords.read(new DataInputStream(new ByteArrayInputStream(payload, 1, length - 1))));
+                    } else if (sequence > afterSequence) {
+                        restored.accept(CatalogRecords.read(new DataInputStream(new ByteArrayInputStream(payload))));
+                    }
+                    lastSequence = sequence;
+                    validLength += Integer.BYTES + Long.BYTES + length + Integer.BYTES;
+                } catch (IOException e) {
+                    if (!last) {
+                        throw new IOException("Журнал каталога повреждён: " + segment, e);
+                    }
+                    break;
+                }
+            }
+        }
+        // Оборванный при сбое хвост последнего сегмента отрезается
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+        }
+        return lastSequence;
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted(Comparator.comparingLong(path -> sequenceOf(path, prefix, suffix)))
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    private static long sequenceOf(Path path, String prefix, String suffix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private sealed interface JournalTask permits Append, Roll, Stop {
+        default void fail(Throwable failure) {
+        }
+    }
+
+    private record Append(long sequence, byte[] payload, CompletableFuture<Void> done) implements JournalTask {
+        @Override
+        public void fail(Throwable failure) {
+            done.completeExceptionally(failure);
+        }
+    }
+
+    private record Roll(long snapshotSequence, CompletableFuture<Void> done) implements JournalTask {
+        @Override
+        public void fail(Throwable failure) {
+            done.completeExceptionally(failure);
+        }
+    }
+
+    private record Stop() implements JournalTask {
+    }
+
+    private record Segment(Path path, long lastSequence) {
+    }
+}
@@ -0,0 +1,37 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.basket.BasketTable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+@Component
+@ConditionalOnProperty(name = "skyshop.basket.store", havingValue = "memory")
+public class InMemoryBasketStore implements BasketStore {
+    private final Map<String, LockedBasket> baskets = new ConcurrentHashMap<>();
+
+    @Override
+    public <R> R withBasket(String basketKey, Function<BasketTable, R> action) {
+        LockedBasket basket = baskets.computeIfAbsent(basketKey, key -> new LockedBasket());
+        basket.lock.lock();
+        try {
+            return action.apply(basket.table);
+        } finally {
+            basket.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String basketKey) {
+        baskets.remove(basketKey);
+    }
+
+    private static final class LockedBasket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BasketTable table = new BasketTable();
+    }
+}
@@ -0,0 +1,495 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.BaseCatalog;
+import org.skypro.skyshop.model.catalog.CatalogLayer;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.FixPriceProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.SearchKey;
+import org.skypro.skyshop.model.search.Searchable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Каталог только для чтения в отображённом в память колоночном файле.
+// Данные лежат в page cache ОС, а не в куче: объект Product создаётся только
+// при обращении к конкретному товару. Формат (big-endian):
+//   заголовок: magic, версия, число товаров P, число статей A, число триграмм G
+//   товары, отсортированные по ID: long msb[P], long lsb[P], int kind[P],
+//     int price[P], int discount[P], int nameOffset[P + 1], int keyOffset[P + 1]
+//   статьи, отсортированные по ID: long msb[A], long lsb[A], int textOffset[2A + 1],
+//     int keyOffset[A + 1]
+//   кучи строк UTF-8: названия товаров, заголовки и тексты статей, затем
+//     поисковые ключи товаров и статей (SearchKey.getValue())
+//   триграммный индекс ключей: long gram[G] по возрастанию, int postingOffset[G + 1],
+//     int row[] - возрастающие номера строк: r < P - товар r, иначе статья r - P
+// Файл записывает ColumnarCatalogWriter
+@Component
+@ConditionalOnProperty(name = "skyshop.catalog.mapped-file")
+public class MappedCatalog implements BaseCatalog {
+    static final int MAGIC = 0x534B5943;
+    static final int FORMAT_VERSION = 3;
+    static final int SIMPLE_PRODUCT = 1;
+    static final int DISCOUNTED_PRODUCT = 2;
+    static final int FIX_PRICE_PRODUCT = 3;
+    // Файл читается одним ByteBuffer с int-позициями
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    // Читается только абсолютными get, поэтому буфер безопасно делить между потоками
+    private final ByteBuffer buffer;
+    private final int productCount;
+    private final int articleCount;
+    private final int productMsb;
+    private final int productLsb;
+    private final int productKind;
+    private final int productPrice;
+    private final int productDiscount;
+    private final int productNameOffsets;
+    private final int productKeyOffsets;
+    private final int articleMsb;
+    private final int articleLsb;
+    private final int articleTextOffsets;
+    private final int articleKeyOffsets;
+    private final int productHeap;
+    private final int articleHeap;
+    private final int productKeyHeap;
+    private final int articleKeyHeap;
+    private final int gramCount;
+    private final int grams;
+    private final int postingOffsets;
+    private final int postings;
+    // Общий порядок товаров и статей по CatalogSnapshot.BY_ID: i - товар, ~i - статья
+    private final int[] searchableOrder;
+    private final CatalogLayer<Product> productLayer;
+    private final CatalogLayer<Article> articleLayer;
+    private final CatalogLayer<Searchable> searchableLayer;
+
+    public MappedCatalog(@Value("${skyshop.catalog.mapped-file}") Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_SIZE) {
+                throw new IOException("Колоночный файл каталога больше 2 ГБ не поддерживается");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть колоночный каталог " + file, e);
+        }
+        long fileSize = buffer.capacity();
+        if (fileSize < HEADER_SIZE) {
+            throw corrupted(file, "файл короче заголовка");
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            throw new IllegalStateException("Неизвестный формат колоночного каталога " + file);
+        }
+        this.productCount = buffer.getInt(2 * Integer.BYTES);
+        this.articleCount = buffer.getInt(3 * Integer.BYTES);
+        this.gramCount = buffer.getInt(4 * Integer.BYTES);
+        if (productCount < 0 || articleCount < 0 || gramCount < 0) {
+            throw corrupted(file, "отрицательное число записей");
+        }
+
+        // Размеры колонок считаются в long: испорченный заголовок не должен
+        // переполнить int и указать внутрь файла
+        long position = HEADER_SIZE;
+        long productLsbStart = position + (long) productCount * Long.BYTES;
+        long productKindStart = productLsbStart + (long) productCount * Long.BYTES;
+        long productPriceStart = productKindStart + (long) productCount * Integer.BYTES;
+        long productDiscountStart = productPriceStart + (long) productCount * Integer.BYTES;
+        long productNameOffsetsStart = productDiscountStart + (long) productCount * Integer.BYTES;
+        long productKeyOffsetsStart = productNameOffsetsStart + (productCount + 1L) * Integer.BYTES;
+        long articleMsbStart = productKeyOffsetsStart + (productCount + 1L) * Integer.BYTES;
+        long articleLsbStart = articleMsbStart + (long) articleCount * Long.BYTES;
+        long articleTextOffsetsStart = articleLsbStart + (long) articleCount * Long.BYTES;
+        long articleKeyOffsetsStart = articleTextOffsetsStart + (2L * articleCount + 1) * Integer.BYTES;
+        long heapStart = articleKeyOffsetsStart + (articleCount + 1L) * Integer.BYTES;
+        if (heapStart > fileSize) {
+            throw corrupted(file, "колонки заголовка выходят за конец файла");
+        }
+        this.productMsb = (int) position;
+        this.productLsb = (int) productLsbStart;
+        this.productKind = (int) productKindStart;
+        this.productPrice = (int) productPriceStart;
+        this.productDiscount = (int) productDiscountStart;
+        this.productNameOffsets = (int) productNameOffsetsStart;
+        this.productKeyOffsets = (int) productKeyOffsetsStart;
+        this.articleMsb = (int) articleMsbStart;
+        this.articleLsb = (int) articleLsbStart;
+        this.articleTextOffsets = (int) articleTextOffsetsStart;
+        this.articleKeyOffsets = (int) articleKeyOffsetsStart;
+
+        long articleHeapStart = heapStart + heapLength(file, productNameOffsets, productCount + 1);
+        long productKeyHeapStart = articleHeapStart + heapLength(file, articleTextOffsets, 2 * articleCount + 1);
+        long articleKeyHeapStart = productKeyHeapStart + heapLength(file, productKeyOffsets, productCount + 1);
+        long gramsStart = articleKeyHeapStart + heapLength(file, articleKeyOffsets, articleCount + 1);
+        long postingOffsetsStart = gramsStart + (long) gramCount * Long.BYTES;
+        long postingsStart = postingOffsetsStart + (gramCount + 1L) * Integer.BYTES;
+        if (postingsStart > fileSize) {
+            throw corrupted(file, "индекс триграмм выходит за конец файла");
+        }
+        long end = postingsStart + heapLength(file, (int) postingOffsetsStart, gramCount + 1) * Integer.BYTES;
+        if (end != fileSize) {
+            throw corrupted(file, "размер файла " + fileSize + " не совпадает с заголовком: " + end);
+        }
+        this.productHeap = (int) heapStart;
+        this.articleHeap = (int) articleHeapStart;
+        this.productKeyHeap = (int) productKeyHeapStart;
+        this.articleKeyHeap = (int) articleKeyHeapStart;
+        this.grams = (int) gramsStart;
+        this.postingOffsets = (int) postingOffsetsStart;
+        this.postings = (int) postingsStart;
+
+        checkSorted(file, productMsb, productLsb, productCount);
+        checkSorted(file, articleMsb, articleLsb, articleCount);
+        for (int i = 0; i < productCount; i++) {
+            int kind = buffer.getInt(productKind + i * Integer.BYTES);
+            if (kind < SIMPLE_PRODUCT || kind > FIX_PRICE_PRODUCT) {
+                throw corrupted(file, "неизвестный тип продукта " + kind + " в строке " + i);
+            }
+        }
+        checkTrigramIndex(file);
+
+        this.searchableOrder = mergeSearchables();
+        this.productLayer = new Layer<>(productCount) {
+            @Override
+            public Product get(int index) {
+                return productAt(index);
+            }
+
+            @Override
+            public int compareTo(int index, Searchable item) {
+                int comparison = compareProductId(index, item.getId());
+                return comparison != 0 ? comparison : CatalogSnapshot.BY_ID.compare(productAt(index), item);
+            }
+        };
+        this.articleLayer = new Layer<>(articleCount) {
+            @Override
+            public Article get(int index) {
+                return articleAt(index);
+            }
+
+            @Override
+            public int compareTo(int index, Searchable item) {
+                int comparison = compare(articleMsb, articleLsb, index, item.getId());
+                return comparison != 0 ? comparison : CatalogSnapshot.BY_ID.compare(articleAt(index), item);
+            }
+        };
+        this.searchableLayer = new Layer<>(searchableOrder.length) {
+            @Override
+            public Searchable get(int index) {
+                int position = searchableOrder[index];
+                return position >= 0 ? productAt(position) : articleAt(~position);
+            }
+
+            @Override
+            public int compareTo(int index, Searchable item) {
+                int position = searchableOrder[index];
+                return position >= 0 ? productLayer.compareTo(position, item) : articleLayer.compareTo(~position, item);
+            }
+        };
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getArticleCount() {
+        return articleCount;
+    }
+
+    @Override
+    public CatalogLayer<Product> products() {
+        return productLayer;
+    }
+
+    @Override
+    public CatalogLayer<Article> articles() {
+        return articleLayer;
+    }
+
+    @Override
+    public CatalogLayer<Searchable> searchables() {
+        return searchableLayer;
+    }
+
+    // null, если товара в файле нет
+    public Product findProduct(UUID id) {
+        int index = find(productMsb, productLsb, productCount, id);
+        return index < 0 ? null : productAt(index);
+    }
+
+    public Article findArticle(UUID id) {
+        int index = find(articleMsb, articleLsb, articleCount, id);
+        return index < 0 ? null : articleAt(index);
+    }
+
+    // Элементы, поисковый ключ которых содержит шаблон. Кандидаты - пересечение
+    // списков триграмм шаблона из индекса файла, начиная с самого короткого.
+    // Затем ключ кандидата сверяется побайтно: ключи в файле уже нормализованы,
+    // а подстрока UTF-8 совпадает побайтно, поэтому строки не декодируются и
+    // объекты создаются только для совпадений
+    public List<Searchable> findMatching(String normalizedPattern) {
+        if (normalizedPattern.length() < SearchKey.TRIGRAM_LENGTH) {
+            throw new IllegalArgumentException("Шаблон короче " + SearchKey.TRIGRAM_LENGTH + " символов не индексируется");
+        }
+        int listCount = normalizedPattern.length() - SearchKey.TRIGRAM_LENGTH + 1;
+        int[] starts = new int[listCount];
+        int[] ends = new int[listCount];
+        int shortest = 0;
+        for (int i = 0; i < listCount; i++) {
+            int gram = findGram(SearchKey.trigram(normalizedPattern, i));
+            if (gram < 0) {
+                return List.of();
+            }
+            starts[i] = buffer.getInt(postingOffsets + gram * Integer.BYTES);
+            ends[i] = buffer.getInt(postingOffsets + (gram + 1) * Integer.BYTES);
+            if (ends[i] - starts[i] < ends[shortest] - starts[shortest]) {
+                shortest = i;
+            }
+        }
+
+        byte[] pattern = normalizedPattern.getBytes(StandardCharsets.UTF_8);
+        List<Searchable> matches = new ArrayList<>();
+        candidates:
+        for (int position = starts[shortest]; position < ends[shortest]; position++) {
+            int row = posting(position);
+            for (int i = 0; i < listCount; i++) {
+                if (i == shortest) {
+                    continue;
+                }
+                // Списки возрастают, поэтому поиск в каждом продолжается с
+                // места предыдущего кандидата
+                int found = findPosting(starts[i], ends[i], row);
+                if (found < 0) {
+                    starts[i] = -found - 1;
+                    continue candidates;
+                }
+                starts[i] = found + 1;
+            }
+            if (row < productCount) {
+                if (containsBytes(productKeyHeap, productKeyOffsets, row, pattern)) {
+                    matches.add(productAt(row));
+                }
+            } else if (containsBytes(articleKeyHeap, articleKeyOffsets, row - productCount, pattern)) {
+                matches.add(articleAt(row - productCount));
+            }
+        }
+        return matches;
+    }
+
+    public Product productAt(int index) {
+        UUID id = new UUID(buffer.getLong(productMsb + index * Long.BYTES), buffer.getLong(productLsb + index * Long.BYTES));
+        String name = string(productHeap, productNameOffsets, index);
+        int price = buffer.getInt(productPrice + index * Integer.BYTES);
+        int kind = buffer.getInt(productKind + index * Integer.BYTES);
+        return switch (kind) {
+            case SIMPLE_PRODUCT -> new SimpleProduct(id, name, price);
+            case DISCOUNTED_PRODUCT -> new DiscountedProduct(id, name, price, buffer.getInt(productDiscount + index * Integer.BYTES));
+            case FIX_PRICE_PRODUCT -> new FixPriceProduct(id, name);
+            default -> throw new IllegalStateException("Неизвестный тип продукта в колоночном каталоге: " + kind);
+        };
+    }
+
+    public Article articleAt(int index) {
+        UUID id = new UUID(buffer.getLong(articleMsb + index * Long.BYTES), buffer.getLong(articleLsb + index * Long.BYTES));
+        return new Article(id, string(articleHeap, articleTextOffsets, 2 * index), string(articleHeap, articleTextOffsets, 2 * index + 1));
+    }
+
+    // Сравнение без создания UUID, в том же порядке, что и UUID.compareTo
+    public int compareProductId(int index, UUID id) {
+        return compare(productMsb, productLsb, index, id);
+    }
+
+    // Смещения строк и списков индекса должны начинаться с нуля и не убывать.
+    // Возвращает последнее смещение, то есть длину кучи или число записей
+    private long heapLength(Path file, int offsets, int count) {
+        int previous = buffer.getInt(offsets);
+        if (previous != 0) {
+            throw corrupted(file, "смещения строк начинаются не с нуля");
+        }
+        for (int i = 1; i < count; i++) {
+            int offset = buffer.getInt(offsets + i * Integer.BYTES);
+            if (offset < previous) {
+                throw corrupted(file, "смещения строк убывают в позиции " + i);
+            }
+            previous = offset;
+        }
+        return previous;
+    }
+
+    // Бинарный поиск верен только на строго возрастающих ID
+    private void checkSorted(Path file, int msbColumn, int lsbColumn, int count) {
+        for (int i = 1; i < count; i++) {
+            long msb = buffer.getLong(msbColumn + (i - 1) * Long.BYTES);
+            long lsb = buffer.getLong(lsbColumn + (i - 1) * Long.BYTES);
+            if (compare(msbColumn, lsbColumn, i, new UUID(msb, lsb)) <= 0) {
+                throw corrupted(file, "ID не отсортированы в позиции " + i);
+            }
+        }
+    }
+
+    // Триграммы строго возрастают, а строки в каждом списке возрастают и
+    // указывают на существующий товар или статью
+    private void checkTrigramIndex(Path file) {
+        for (int i = 1; i < gramCount; i++) {
+            if (buffer.getLong(grams + (i - 1) * Long.BYTES) >= buffer.getLong(grams + i * Long.BYTES)) {
+                throw corrupted(file, "триграммы индекса не отсортированы в позиции " + i);
+            }
+        }
+        long rowCount = (long) productCount + articleCount;
+        for (int gram = 0; gram < gramCount; gram++) {
+            int start = buffer.getInt(postingOffsets + gram * Integer.BYTES);
+            int end = buffer.getInt(postingOffsets + (gram + 1) * Integer.BYTES);
+            int previous = -1;
+            for (int position = start; position < end; position++) {
+                int row = posting(position);
+                if (row <= previous || row >= rowCount) {
+                    throw corrupted(file, "некорректная строка " + row + " в индексе триграмм");
+                }
+                previous = row;
+            }
+        }
+    }
+
+    private int findGram(long gram) {
+        int low = 0;
+        int high = gramCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getLong(grams + middle * Long.BYTES);
+            if (value < gram) {
+                low = middle + 1;
+            } else if (value > gram) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // Как Arrays.binarySearch: позиция строки или -(точка вставки) - 1
+    private int findPosting(int from, int to, int row) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = posting(middle);
+            if (value < row) {
+                low = middle + 1;
+            } else if (value > row) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int posting(int position) {
+        return buffer.getInt(postings + position * Integer.BYTES);
+    }
+
+    private int[] mergeSearchables() {
+        int[] order = new int[productCount + articleCount];
+        int size = 0;
+        int product = 0;
+        int article = 0;
+        while (product < productCount || article < articleCount) {
+            int comparison;
+            if (article == articleCount) {
+                comparison = -1;
+            } else if (product == productCount) {
+                comparison = 1;
+            } else {
+                comparison = compareProductId(product, new UUID(
+                        buffer.getLong(articleMsb + article * Long.BYTES),
+                        buffer.getLong(articleLsb + article * Long.BYTES)));
+                if (comparison == 0) {
+                    comparison = CatalogSnapshot.BY_ID.compare(productAt(product), articleAt(article));
+                }
+            }
+            order[size++] = comparison < 0 ? product++ : ~article++;
+        }
+        return order;
+    }
+
+    private int find(int msbColumn, int lsbColumn, int count, UUID id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(msbColumn, lsbColumn, middle, id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int msbColumn, int lsbColumn, int index, UUID id) {
+        int comparison = Long.compare(buffer.getLong(msbColumn + index * Long.BYTES), id.getMostSignificantBits());
+        if (comparison != 0) {
+            return comparison;
+        }
+        return Long.compare(buffer.getLong(lsbColumn + index * Long.BYTES), id.getLeastSignificantBits());
+    }
+
+    private boolean containsBytes(int heap, int offsets, int index, byte[] pattern) {
+        int start = heap + buffer.getInt(offsets + index * Integer.BYTES);
+        int last = heap + buffer.getInt(offsets + (index + 1) * Integer.BYTES) - pattern.length;
+        for (int from = start; from <= last; from++) {
+            int matched = 0;
+            while (matched < pattern.length && buffer.get(from + matched) == pattern[matched]) {
+                matched++;
+            }
+            if (matched == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String string(int heap, int offsets, int index) {
+        int start = buffer.getInt(offsets + index * Integer.BYTES);
+        int end = buffer.getInt(offsets + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(heap + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalStateException corrupted(Path file, String reason) {
+        return new IllegalStateException("Колоночный каталог " + file + " повреждён: " + reason);
+    }
+
+    private abstract static class Layer<T extends Searchable> implements CatalogLayer<T> {
+        private final int size;
+
+        Layer(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.skypro.skyshop.storage;
+
+import org.skypro.skyshop.model.basket.BasketTable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Горячий уровень - корзины, к которым обращались за последние idle-timeout,
+// остальные выгружаются на диск и загружаются обратно при следующем запросе.
+// Куча занята корзинами активных пользователей, а не всех открытых сессий.
+// Ключ корзины - ID сессии, а сессии не переживают перезапуск, поэтому
+// файлы на диске нужны только до конца сессии: при старте каталог
+// очищается, а файлы старше spill-ttl удаляются вместе с выгрузкой
+@Component
+@ConditionalOnProperty(name = "skyshop.basket.store", havingValue = "tiered", matchIfMissing = true)
+public class TieredBasketStore implements BasketStore, DisposableBean {
+    private final Map<String, HotBasket> hotBaskets;
+    private final BasketSpillFiles spillFiles;
+    private final long idleTimeoutNanos;
+    private final Duration spillTtl;
+
+    public TieredBasketStore(@Value("${skyshop.basket.spill-dir:${java.io.tmpdir}/skyshop-baskets}") Path spillDirectory,
+                             @Value("${skyshop.basket.idle-timeout:10m}") Duration idleTimeout,
+                             @Value("${skyshop.basket.spill-ttl:${server.servlet.session.timeout:30m}}") Duration spillTtl) {
+        this.hotBaskets = new ConcurrentHashMap<>();
+        this.spillFiles = new BasketSpillFiles(spillDirectory);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.spillTtl = spillTtl;
+        // Файлы прошлого запуска принадлежат сессиям, которых больше нет
+        spillFiles.deleteModifiedBefore(Instant.MAX);
+    }
+
+    @Override
+    public <R> R withBasket(String basketKey, Function<BasketTable, R> action) {
+        HotBasket hot = lockLive(basketKey);
+        try {
+            hot.lastAccess = System.nanoTime();
+            return action.apply(hot.table);
+        } finally {
+            hot.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String basketKey) {
+        HotBasket hot = hotBaskets.get(basketKey);
+        if (hot != null) {
+            hot.lock.lock();
+            try {
+                retire(basketKey, hot);
+            } finally {
+                hot.lock.unlock();
+            }
+        }
+        spillFiles.delete(basketKey);
+    }
+
+    public int getHotBasketCount() {
+        return hotBaskets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${skyshop.basket.eviction-interval:PT1M}")
+    public void evictIdleBaskets() {
+        long now = System.nanoTime();
+        hotBaskets.forEach((basketKey, hot) -> {
+            // Корзину, с которой сейчас работает запрос, не ждём - выгрузим в следующий раз
+            if (now - hot.lastAccess < idleTimeoutNanos || !hot.lock.tryLock()) {
+                return;
+            }
+            try {
+                if (!hot.retired && now - hot.lastAccess >= idleTimeoutNanos) {
+                    spill(basketKey, hot);
+                }
+            } finally {
+                hot.lock.unlock();
+            }
+        });
+        // Страховка на случай, если сессия истекла без вызова remove:
+        // файл изменяется при каждой выгрузке, поэтому старше spill-ttl
+        // бывают только файлы уже истёкших сессий
+        spillFiles.deleteModifiedBefore(Instant.now().minus(spillTtl));
+    }
+
+    // При остановке корзины не сохраняются: после перезапуска их сессий уже
+    // не будет, и файлы остались бы на диске навсегда
+    @Override
+    public void destroy() {
+        hotBaskets.clear();
+    }
+
+    // Возвращает захваченную корзину, которая ещё не выгружена. Загрузка с
+    // диска идёт под блокировкой самой корзины, а не внутри compute() карты,
+    // поэтому файловый ввод-вывод не держит монитор ConcurrentHashMap
+    private HotBasket lockLive(String basketKey) {
+        while (true) {
+            HotBasket hot = hotBaskets.get(basketKey);
+            if (hot == null) {
+                HotBasket loading = new HotBasket();
+                loading.lock.lock();
+                HotBasket raced = hotBaskets.putIfAbsent(basketKey, loading);
+                if (raced == null) {
+                    try {
+                        BasketTable spilled = spillFiles.read(basketKey);
+                        loading.table = spilled == null ? new BasketTable() : spilled;
+                        return loading;
+                    } catch (RuntimeException e) {
+                        retire(basketKey, loading);
+                        loading.lock.unlock();
+                        throw e;
+                    }
+                }
+                loading.lock.unlock();
+                hot = raced;
+            }
+
+            hot.lock.lock();
+            if (!hot.retired) {
+                return hot;
+            }
+            hot.lock.unlock();
+        }
+    }
+
+    // Вызывается под блокировкой корзины. Файл записывается до удаления из
+    // карты, поэтому следующая загрузка увидит уже сохранённое состояние
+    private void spill(String basketKey, HotBasket hot) {
+        if (hot.table.size() == 0) {
+            spillFiles.delete(basketKey);
+        } else {
+            spillFiles.write(basketKey, hot.table);
+        }
+        retire(basketKey, hot);
+    }
+
+    private void retire(String basketKey, HotBasket hot) {
+        hot.retired = true;
+        hotBaskets.remove(basketKey, hot);
+    }
+
+    private static final class HotBasket {
+        private final ReentrantLock lock = new ReentrantLock();
+        private BasketTable table;
+        private boolean retired;
+        private volatile long lastAccess = System.nanoTime();
+    }
+}
@@ -0,0 +1,67 @@
+package org.skypro.skyshop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalRequestsTests {
+
+    private static final String TEST_PRODUCT_ID = "3e0357fc-de23-4dfc-b598-e999f776c345";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void products_WhenETagMatches_ShouldReturnNotModifiedUntilCatalogChanges() {
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/products", String.class);
+        String eTag = first.getHeaders().getETag();
+        assertNotNull(eTag);
+        assertFalse(eTag.startsWith("W/"));
+        assertNotNull(first.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+
+        ResponseEntity<String> unchanged = getIfNoneMatch("/api/products", eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.postForEntity("/api/products",
+                new HttpEntity<>("{\"name\":\"Веб-камера\",\"price\":3000}", headers), String.class);
+
+        ResponseEntity<String> changed = getIfNoneMatch("/api/products", eTag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+        assertTrue(changed.getBody().contains("Веб-камера"));
+    }
+
+    @Test
+    void productDetails_WhenPromotionAdded_ShouldChangeETag() {
+        String eTag = restTemplate.getForEntity("/api/products/details", String.class).getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch("/api/products/details", eTag).getStatusCode());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        restTemplate.postForEntity("/api/promotions", new HttpEntity<>(
+                "{\"name\":\"Скидка\",\"discountPercent\":10,\"productIds\":[\"" + TEST_PRODUCT_ID + "\"]}", headers), String.class);
+
+        ResponseEntity<String> changed = getIfNoneMatch("/api/products/details", eTag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertTrue(changed.getBody().contains("\"price\":45000"), changed.getBody());
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,52 @@
+package org.skypro.skyshop;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsTests {
+
+    private static final String TEST_PRODUCT_ID = "3e0357fc-de23-4dfc-b598-e999f776c345";
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void tomcat_ShouldRunRequestsOnVirtualThreads() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+    }
+
+    @Test
+    void sessionBasket_ShouldWorkOnVirtualThreads() {
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/basket/" + TEST_PRODUCT_ID, String.class);
+        String sessionCookie = first.getHeaders().getFirst(HttpHeaders.SET_COOKIE).split(";")[0];
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, sessionCookie);
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        restTemplate.exchange("/api/basket/" + TEST_PRODUCT_ID, HttpMethod.GET, request, String.class);
+        String summary = restTemplate.exchange("/api/basket/summary", HttpMethod.GET, request, String.class)
+                .getBody();
+
+        assertNotNull(summary);
+        assertTrue(summary.contains("\"itemsCount\":2"), summary);
+    }
+}
@@ -0,0 +1,59 @@
+package org.skypro.skyshop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.service.StorageService;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StorageService storageService;
+    private CatalogJsonCache catalogJsonCache;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService();
+        catalogJsonCache = new CatalogJsonCache(objectMapper, storageService);
+    }
+
+    @Test
+    void jsonArray_ShouldMatchJacksonOutput() throws Exception {
+        List<Product> products = List.copyOf(storageService.getAllProducts());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        catalogJsonCache.jsonArray(products).writeTo(outputStream);
+
+        assertEquals(objectMapper.writeValueAsString(products), outputStream.toString());
+    }
+
+    @Test
+    void toJson_WhenProductReplaced_ShouldNotReuseStaleBytes() {
+        UUID id = UUID.randomUUID();
+        Product original = storageService.addProduct(new SimpleProduct(id, "Ноутбук", 50000));
+        byte[] originalJson = catalogJsonCache.toJson(original);
+        assertSame(originalJson, catalogJsonCache.toJson(original));
+
+        Product replaced = storageService.addProduct(new SimpleProduct(id, "Ноутбук", 60000));
+
+        assertTrue(new String(catalogJsonCache.toJson(replaced)).contains("60000"));
+    }
+
+    @Test
+    void toJson_WhenProductAlreadyRemoved_ShouldNotCacheIt() {
+        Product product = storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Планшет", 30000));
+        int sizeBefore = catalogJsonCache.size();
+        storageService.removeProduct(product.getId());
+
+        assertTrue(new String(catalogJsonCache.toJson(product)).contains("Планшет"));
+        assertEquals(sizeBefore, catalogJsonCache.size());
+    }
+}
@@ -0,0 +1,102 @@
+package org.skypro.skyshop.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class NdjsonEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void products_WhenNdjsonAccepted_ShouldReturnOneProductPerLine() throws Exception {
+        String[] lines = ndjsonLines("/api/products");
+
+        assertTrue(lines.length > 0);
+        for (String line : lines) {
+            JsonNode product = objectMapper.readTree(line);
+            assertTrue(product.isObject(), line);
+            assertTrue(product.has("id") && product.has("price"), line);
+        }
+    }
+
+    @Test
+    void productDetails_WhenNdjsonAccepted_ShouldReturnOneProductInfoPerLine() throws Exception {
+        String[] lines = ndjsonLines("/api/products/details");
+
+        assertTrue(lines.length > 0);
+        for (String line : lines) {
+            JsonNode info = objectMapper.readTree(line);
+            assertTrue(info.isObject(), line);
+            assertEquals(3, info.size(), line);
+        }
+    }
+
+    @Test
+    void search_WhenNdjsonAccepted_ShouldReturnOneResultPerLine() throws Exception {
+        String[] lines = ndjsonLines("/api/search?pattern=игров");
+
+        assertTrue(lines.length >= 2);
+        for (String line : lines) {
+            assertTrue(objectMapper.readTree(line).get("name").asText().toLowerCase().contains("игров"), line);
+        }
+    }
+
+    @Test
+    void ndjsonBody_ShouldFlushInBatchesNotPerItem() throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        int items = NdjsonBody.FLUSH_EVERY * 4 + 10;
+
+        NdjsonBody.of(objectMapper, IntStream.range(0, items).boxed()).writeTo(outputStream);
+
+        assertEquals(items, outputStream.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(outputStream.flushes <= items / NdjsonBody.FLUSH_EVERY + 1, "flushes: " + outputStream.flushes);
+    }
+
+    private String[] ndjsonLines(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"), body);
+        return body.split("\n");
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.skypro.skyshop.model.basket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasketTableTest {
+
+    @Test
+    void randomAddsAndRemoves_ShouldMatchHashMapModel() {
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+
+        BasketTable table = new BasketTable();
+        Map<UUID, Integer> model = new HashMap<>();
+        for (int step = 0; step < 20000; step++) {
+            UUID id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                boolean removed = table.removeOne(id);
+                assertEquals(model.containsKey(id), removed);
+                model.computeIfPresent(id, (key, quantity) -> quantity == 1 ? null : quantity - 1);
+            } else {
+                table.add(id, 100);
+                model.merge(id, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(model, table.toMap());
+        assertEquals(model.size(), table.size());
+        assertEquals(model.values().stream().mapToInt(Integer::intValue).sum(), table.totalQuantity());
+        assertEquals(100L * table.totalQuantity(), table.priceTotal());
+        for (UUID id : ids) {
+            assertEquals(model.getOrDefault(id, 0), table.quantity(id));
+        }
+    }
+
+    @Test
+    void clear_ShouldReleaseStorage() {
+        BasketTable table = new BasketTable();
+        table.add(UUID.randomUUID(), 1000);
+
+        table.clear();
+
+        assertEquals(0, table.size());
+        assertEquals(0, table.quantity(UUID.randomUUID()));
+        assertTrue(table.toMap().isEmpty());
+    }
+
+    @Test
+    void add_WhenQuantityAboveLimit_ShouldThrowAndKeepPosition() {
+        BasketTable table = new BasketTable();
+        UUID id = UUID.randomUUID();
+        table.set(id, 100, BasketTable.MAX_QUANTITY);
+
+        assertThrows(IllegalArgumentException.class, () -> table.add(id, 100));
+
+        assertEquals(BasketTable.MAX_QUANTITY, table.quantity(id));
+        assertEquals((long) BasketTable.MAX_QUANTITY, table.totalQuantity());
+    }
+}
@@ -0,0 +1,138 @@
+package org.skypro.skyshop.model.basket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductBasketTest {
+
+    private ProductBasket productBasket;
+    private UUID laptopId;
+    private UUID mouseId;
+
+    @BeforeEach
+    void setUp() {
+        productBasket = new ProductBasket();
+        laptopId = UUID.fromString("11111111-1111-1111-1111-111111111111");
+        mouseId = UUID.fromString("22222222-2222-2222-2222-222222222222");
+    }
+
+    @Test
+    void addProduct_ShouldUpdateAggregates() {
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(mouseId, 5000);
+
+        BasketSummary summary = productBasket.getSummary();
+
+        assertEquals(3, summary.getItemsCount());
+        assertEquals(2, summary.getDistinctItemsCount());
+        assertEquals(105000, summary.getTotal());
+        assertEquals(2, productBasket.getProductQuantity(laptopId));
+    }
+
+    @Test
+    void addProduct_WhenPriceChanged_ShouldRepriceWholePosition() {
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(laptopId, 45000);
+
+        assertEquals(90000, productBasket.getSummary().getTotal());
+    }
+
+    @Test
+    void snapshot_ShouldCopyQuantitiesAndPricesIndependentlyOfBasket() {
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(mouseId, 5000);
+
+        BasketTable snapshot = productBasket.snapshot();
+        productBasket.clearBasket();
+
+        Map<UUID, Integer> prices = new HashMap<>();
+        snapshot.forEach((msb, lsb, quantity, unitPrice) -> prices.put(new UUID(msb, lsb), unitPrice));
+        assertEquals(Map.of(laptopId, 50000, mouseId, 5000), prices);
+        assertEquals(55000, snapshot.priceTotal());
+        assertEquals(0, productBasket.getTotalItemCount());
+    }
+
+    @Test
+    void removeProduct_ShouldDecrementAggregates() {
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(mouseId, 5000);
+
+        assertTrue(productBasket.removeProduct(laptopId));
+        assertTrue(productBasket.removeProduct(mouseId));
+        assertFalse(productBasket.removeProduct(mouseId));
+
+        assertEquals(1, productBasket.getTotalItemCount());
+        assertEquals(1, productBasket.getSummary().getDistinctItemsCount());
+        assertEquals(50000, productBasket.getSummary().getTotal());
+    }
+
+    @Test
+    void clearBasket_ShouldResetAggregates() {
+        productBasket.addProduct(laptopId, 50000);
+
+        productBasket.clearBasket();
+
+        assertEquals(0, productBasket.getTotalItemCount());
+        assertEquals(0, productBasket.getSummary().getDistinctItemsCount());
+        assertEquals(0, productBasket.getSummary().getTotal());
+        assertTrue(productBasket.getAllProducts().isEmpty());
+    }
+
+    @Test
+    void applyOperations_ShouldApplyAddRemoveAndSetInOrder() {
+        productBasket.addProduct(mouseId, 5000);
+
+        BasketSummary summary = productBasket.applyOperations(List.of(
+                new BasketOperation(laptopId, BasketOperation.Type.ADD, 3),
+                new BasketOperation(laptopId, BasketOperation.Type.REMOVE, 1),
+                new BasketOperation(mouseId, BasketOperation.Type.SET, 0)
+        ), Map.of(laptopId, 50000, mouseId, 5000));
+
+        assertEquals(2, summary.getItemsCount());
+        assertEquals(1, summary.getDistinctItemsCount());
+        assertEquals(100000, summary.getTotal());
+        assertEquals(0, productBasket.getProductQuantity(mouseId));
+    }
+
+    @Test
+    void applyOperations_WhenOneOperationFails_ShouldLeaveBasketUnchanged() {
+        productBasket.addProduct(mouseId, 5000);
+
+        assertThrows(IllegalArgumentException.class, () -> productBasket.applyOperations(List.of(
+                new BasketOperation(laptopId, BasketOperation.Type.ADD, 2),
+                new BasketOperation(mouseId, BasketOperation.Type.REMOVE, 2)
+        ), Map.of(laptopId, 50000)));
+
+        assertEquals(0, productBasket.getProductQuantity(laptopId));
+        assertEquals(1, productBasket.getProductQuantity(mouseId));
+        assertEquals(5000, productBasket.getSummary().getTotal());
+    }
+
+    @Test
+    void applyOperations_WhenPriceMissingForNewProduct_ShouldRejectBatch() {
+        assertThrows(IllegalArgumentException.class, () -> productBasket.applyOperations(List.of(
+                new BasketOperation(laptopId, BasketOperation.Type.SET, 2)
+        ), Map.of()));
+
+        assertEquals(0, productBasket.getProductQuantity(laptopId));
+        assertEquals(0, productBasket.getSummary().getTotal());
+    }
+
+    @Test
+    void applyOperations_WhenQuantityAboveLimit_ShouldRejectBatch() {
+        assertThrows(IllegalArgumentException.class, () -> productBasket.applyOperations(List.of(
+                new BasketOperation(laptopId, BasketOperation.Type.SET, BasketTable.MAX_QUANTITY + 1)
+        ), Map.of(laptopId, 50000)));
+
+        assertEquals(0, productBasket.getProductQuantity(laptopId));
+    }
+}
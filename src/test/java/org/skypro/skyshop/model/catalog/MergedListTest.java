@@ -0,0 +1,80 @@
+package org.skypro.skyshop.model.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergedListTest {
+
+    @Test
+    void get_ShouldMatchNaiveMergeWithOverlayWinningOnSameId() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            List<Product> base = new ArrayList<>();
+            int baseSize = random.nextInt(40);
+            for (int i = 0; i < baseSize; i++) {
+                base.add(new SimpleProduct(new UUID(random.nextInt(64), 0), "База", 100));
+            }
+            base = distinctSorted(base);
+            List<Product> overlay = new ArrayList<>();
+            int overlaySize = random.nextInt(10);
+            for (int i = 0; i < overlaySize; i++) {
+                overlay.add(new SimpleProduct(new UUID(random.nextInt(64), 0), "Память", 200));
+            }
+            overlay = distinctSorted(overlay);
+
+            TreeMap<UUID, Product> expected = new TreeMap<>();
+            base.forEach(product -> expected.put(product.getId(), product));
+            overlay.forEach(product -> expected.put(product.getId(), product));
+
+            MergedList<Product> merged = new MergedList<>(layer(base), overlay);
+
+            List<Product> expectedOrder = new ArrayList<>(expected.values());
+            assertEquals(expectedOrder.size(), merged.size());
+            for (int i = 0; i < expectedOrder.size(); i++) {
+                assertSame(expectedOrder.get(i), merged.get(i));
+            }
+        }
+    }
+
+    @Test
+    void get_WhenIndexOutOfRange_ShouldThrow() {
+        MergedList<Product> merged = new MergedList<>(layer(List.of()), List.of());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> merged.get(0));
+    }
+
+    private static List<Product> distinctSorted(List<Product> products) {
+        TreeMap<UUID, Product> byId = new TreeMap<>();
+        products.forEach(product -> byId.putIfAbsent(product.getId(), product));
+        return new ArrayList<>(byId.values());
+    }
+
+    private static CatalogLayer<Product> layer(List<Product> sorted) {
+        return new CatalogLayer<>() {
+            @Override
+            public int size() {
+                return sorted.size();
+            }
+
+            @Override
+            public Product get(int index) {
+                return sorted.get(index);
+            }
+
+            @Override
+            public int compareTo(int index, Searchable item) {
+                return CatalogSnapshot.BY_ID.compare(sorted.get(index), item);
+            }
+        };
+    }
+}
@@ -1,16 +1,23 @@
 package org.skypro.skyshop.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.skypro.skyshop.exception.NoSuchProductException;
 import org.skypro.skyshop.model.basket.BasketItem;
+import org.skypro.skyshop.model.basket.BasketOperation;
+import org.skypro.skyshop.model.basket.BasketSummary;
+import org.skypro.skyshop.model.basket.BasketTable;
 import org.skypro.skyshop.model.basket.ProductBasket;
 import org.skypro.skyshop.model.basket.UserBasket;
+import org.skypro.skyshop.model.pricing.Promotion;
 import org.skypro.skyshop.model.product.Product;
 import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.service.pricing.PriceTable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.*;
@@ -27,6 +34,12 @@ class BasketServiceTest {
     @Mock
     private StorageService storageService;
 
+    @Mock
+    private PricingService pricingService;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private BasketService basketService;
 
@@ -44,6 +57,11 @@ class BasketServiceTest {
                 "Тестовый продукт",
                 10000
         );
+        // Без акций цена берётся из самого товара
+        lenient().when(pricingService.getPriceTable())
+                .thenReturn(new PriceTable(Map.of(), 0, Long.MAX_VALUE));
+        lenient().when(pricingService.getPrice(any()))
+                .thenAnswer(invocation -> invocation.<Product>getArgument(0).getPrice());
     }
 
     @Test
@@ -60,7 +78,7 @@ class BasketServiceTest {
                 exception.getMessage());
 
         verify(storageService, times(1)).findProductById(nonExistingProductId);
-        verify(productBasket, never()).addProduct(any());
+        verify(productBasket, never()).addProduct(any(), anyInt());
     }
 
     @Test
@@ -71,12 +89,12 @@ class BasketServiceTest {
         basketService.addProductToBasket(existingProductId);
 
         verify(storageService, times(1)).findProductById(existingProductId);
-        verify(productBasket, times(1)).addProduct(existingProductId);
+        verify(productBasket, times(1)).addProduct(existingProductId, 10000);
     }
 
     @Test
     void getUserBasket_WhenBasketIsEmpty_ShouldReturnEmptyBasket() {
-        when(productBasket.getAllProducts()).thenReturn(Collections.emptyMap());
+        when(productBasket.snapshot()).thenReturn(new BasketTable());
 
         UserBasket userBasket = basketService.getUserBasket();
 
@@ -85,8 +103,8 @@ class BasketServiceTest {
         assertEquals(0, userBasket.getTotal());
         assertEquals(0, userBasket.getItemsCount());
 
-        verify(productBasket, times(1)).getAllProducts();
-        verify(storageService, never()).getProductById(any());
+        verify(productBasket, times(1)).snapshot();
+        verify(storageService, never()).getProductsByIds(any());
     }
 
     @Test
@@ -101,9 +119,9 @@ class BasketServiceTest {
         basketItems.put(productId1, 2);
         basketItems.put(productId2, 1);
 
-        when(productBasket.getAllProducts()).thenReturn(basketItems);
-        when(storageService.getProductById(productId1)).thenReturn(product1);
-        when(storageService.getProductById(productId2)).thenReturn(product2);
+        when(productBasket.snapshot()).thenReturn(basketTable(basketItems, Map.of(productId1, 10000, productId2, 20000)));
+        when(storageService.getProductsByIds(basketItems.keySet()))
+                .thenReturn(Map.of(productId1, product1, productId2, product2));
 
         UserBasket userBasket = basketService.getUserBasket();
 
@@ -134,9 +152,8 @@ class BasketServiceTest {
         assertEquals(1, item2.getQuantity());
         assertEquals(20000, item2.getTotalPrice()); // 20000 * 1
 
-        verify(productBasket, times(1)).getAllProducts();
-        verify(storageService, times(1)).getProductById(productId1);
-        verify(storageService, times(1)).getProductById(productId2);
+        verify(productBasket, times(1)).snapshot();
+        verify(storageService, times(1)).getProductsByIds(basketItems.keySet());
     }
 
     @Test
@@ -148,16 +165,16 @@ class BasketServiceTest {
 
     @Test
     void getTotalItemsCount_ShouldReturnCorrectCount() {
-        when(productBasket.getTotalItemCount()).thenReturn(5);
+        when(productBasket.getTotalItemCount()).thenReturn(5L);
 
-        int count = basketService.getTotalItemsCount();
+        long count = basketService.getTotalItemsCount();
 
         assertEquals(5, count);
         verify(productBasket, times(1)).getTotalItemCount();
     }
 
     @Test
-    void getUserBasket_ShouldCallGetProductByIdForEachItem() {
+    void getUserBasket_ShouldResolveAllItemsInOneBulkLookup() {
         UUID productId1 = UUID.randomUUID();
         UUID productId2 = UUID.randomUUID();
 
@@ -165,15 +182,82 @@ class BasketServiceTest {
         basketItems.put(productId1, 1);
         basketItems.put(productId2, 3);
 
-        when(productBasket.getAllProducts()).thenReturn(basketItems);
-        when(storageService.getProductById(productId1))
-                .thenReturn(new SimpleProduct(productId1, "Продукт 1", 1000));
-        when(storageService.getProductById(productId2))
-                .thenReturn(new SimpleProduct(productId2, "Продукт 2", 2000));
+        when(productBasket.snapshot()).thenReturn(basketTable(basketItems, Map.of(productId1, 1000, productId2, 2000)));
+        when(storageService.getProductsByIds(basketItems.keySet()))
+                .thenReturn(Map.of(
+                        productId1, new SimpleProduct(productId1, "Продукт 1", 1000),
+                        productId2, new SimpleProduct(productId2, "Продукт 2", 2000)
+                ));
 
         basketService.getUserBasket();
 
-        verify(storageService, times(1)).getProductById(productId1);
-        verify(storageService, times(1)).getProductById(productId2);
+        verify(storageService, times(1)).getProductsByIds(basketItems.keySet());
+        verify(storageService, never()).getProductById(any());
+    }
+
+    @Test
+    void getUserBasket_WhenProductWasRemovedFromCatalog_ShouldSkipIt() {
+        Map<UUID, Integer> basketItems = new HashMap<>();
+        basketItems.put(existingProductId, 2);
+        basketItems.put(nonExistingProductId, 5);
+
+        when(productBasket.snapshot()).thenReturn(basketTable(basketItems, Map.of(existingProductId, 10000, nonExistingProductId, 3000)));
+        when(storageService.getProductsByIds(basketItems.keySet()))
+                .thenReturn(Map.of(existingProductId, testProduct));
+
+        UserBasket userBasket = basketService.getUserBasket();
+
+        assertEquals(1, userBasket.getItems().size());
+        assertEquals(20000, userBasket.getTotal());
+        assertEquals(2, userBasket.getItemsCount());
+    }
+
+    @Test
+    void applyBulk_WhenSomeProductsDoNotExist_ShouldListThemAndNotTouchBasket() {
+        List<BasketOperation> operations = List.of(
+                new BasketOperation(existingProductId, BasketOperation.Type.ADD, 2),
+                new BasketOperation(nonExistingProductId, BasketOperation.Type.SET, 1)
+        );
+        when(storageService.getProductsByIds(Set.of(existingProductId, nonExistingProductId)))
+                .thenReturn(Map.of(existingProductId, testProduct));
+
+        NoSuchProductException exception = assertThrows(
+                NoSuchProductException.class,
+                () -> basketService.applyBulk(operations)
+        );
+
+        assertEquals("Продукты не найдены: [" + nonExistingProductId + "]", exception.getMessage());
+        verify(productBasket, never()).applyOperations(any(), any());
+    }
+
+    @Test
+    void getBasketSummary_WhenPromotionAddedAfterAdd_ShouldKeepAddTimePriceLikeUserBasket() {
+        StorageService storage = new StorageService();
+        PricingService pricing = new PricingService(storage);
+        BasketService service = new BasketService(new ProductBasket(), storage, pricing, new SimpleMeterRegistry());
+        Product laptop = storage.addProduct(new SimpleProduct(existingProductId, "Ноутбук", 50000));
+        service.addProductToBasket(laptop.getId());
+        service.addProductToBasket(laptop.getId());
+
+        pricing.addPromotion(new Promotion(null, "Распродажа", 20, null, null, Set.of(laptop.getId())));
+
+        BasketSummary summary = service.getBasketSummary();
+        UserBasket userBasket = service.getUserBasket();
+        assertEquals(100000, summary.getTotal());
+        assertEquals(userBasket.getTotal(), summary.getTotal());
+        assertEquals(2, summary.getItemsCount());
+        assertEquals(1, summary.getDistinctItemsCount());
+
+        // Следующее добавление фиксирует для позиции уже акционную цену
+        service.addProductToBasket(laptop.getId());
+        assertEquals(120000, service.getBasketSummary().getTotal());
+        assertEquals(120000, service.getUserBasket().getTotal());
+    }
+
+    private static BasketTable basketTable(Map<UUID, Integer> quantities, Map<UUID, Integer> unitPrices) {
+        BasketTable table = new BasketTable();
+        quantities.forEach((id, quantity) -> table.add(id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                unitPrices.get(id), quantity));
+        return table;
     }
 }
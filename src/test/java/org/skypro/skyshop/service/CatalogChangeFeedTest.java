@@ -0,0 +1,142 @@
+package org.skypro.skyshop.service;
+
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.exception.ChangeFeedGapException;
+import org.skypro.skyshop.model.catalog.CatalogChangeEvent;
+import org.skypro.skyshop.model.product.SimpleProduct;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogChangeFeedTest {
+
+    @Test
+    void subscribe_WhenResumingFromVersion_ShouldReceiveChangesInOrder() throws InterruptedException {
+        StorageService storageService = new StorageService();
+        long version = storageService.getCatalogVersion();
+        UUID id = UUID.randomUUID();
+        storageService.addProduct(new SimpleProduct(id, "Монитор", 20000));
+        storageService.addProduct(new SimpleProduct(id, "Монитор", 18000));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        storageService.getChangeFeed().subscribe(subscriber, version);
+        storageService.removeProduct(id);
+
+        CatalogChangeEvent added = subscriber.next();
+        CatalogChangeEvent updated = subscriber.next();
+        CatalogChangeEvent removed = subscriber.next();
+        assertEquals(CatalogChangeEvent.Type.ADDED, added.getType());
+        assertEquals(version + 1, added.getSequence());
+        assertEquals(CatalogChangeEvent.Type.UPDATED, updated.getType());
+        assertEquals(18000, ((SimpleProduct) updated.getItem()).getPrice());
+        assertEquals(CatalogChangeEvent.Type.REMOVED, removed.getType());
+        assertEquals(id, removed.getId());
+        assertNull(removed.getItem());
+        assertEquals(storageService.getCatalogVersion(), removed.getSequence());
+    }
+
+    @Test
+    void eventsAfter_WhenEventsEvicted_ShouldThrowGapException() {
+        CatalogChangeFeed changeFeed = new CatalogChangeFeed(4, 10, Runnable::run);
+        for (long sequence = 11; sequence <= 16; sequence++) {
+            changeFeed.publish(event(sequence));
+        }
+
+        assertEquals(List.of(15L, 16L), changeFeed.eventsAfter(14, 10).stream()
+                .map(CatalogChangeEvent::getSequence).toList());
+        assertThrows(ChangeFeedGapException.class, () -> changeFeed.eventsAfter(11, 10));
+        assertThrows(ChangeFeedGapException.class, () -> changeFeed.eventsAfter(5, 10));
+        assertThrows(ChangeFeedGapException.class, () -> changeFeed.eventsAfter(17, 10));
+    }
+
+    @Test
+    void subscribe_WhenSubscriberFallsBehind_ShouldSignalGapInsteadOfSkipping() throws InterruptedException {
+        CatalogChangeFeed changeFeed = new CatalogChangeFeed(4, 0, Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        changeFeed.subscribe(subscriber);
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            changeFeed.publish(event(sequence));
+        }
+
+        subscriber.subscription.request(1);
+
+        assertTrue(subscriber.events.isEmpty());
+        assertInstanceOf(ChangeFeedGapException.class, subscriber.error);
+    }
+
+    @Test
+    void subscribe_WhenReconnectingWithEpochOfPreviousFeed_ShouldSignalGap() throws InterruptedException {
+        // Два запуска приложения с каталогом в памяти нумеруют изменения одинаково
+        CatalogChangeFeed beforeRestart = new CatalogChangeFeed(16, 0, Runnable::run);
+        CatalogChangeFeed afterRestart = new CatalogChangeFeed(16, 0, Runnable::run);
+        for (long sequence = 1; sequence <= 8; sequence++) {
+            beforeRestart.publish(event(sequence));
+            afterRestart.publish(event(sequence));
+        }
+        assertNotEquals(beforeRestart.getEpoch(), afterRestart.getEpoch());
+
+        RecordingSubscriber stale = new RecordingSubscriber();
+        afterRestart.subscribe(stale, beforeRestart.getEpoch(), 5);
+        RecordingSubscriber current = new RecordingSubscriber();
+        afterRestart.subscribe(current, afterRestart.getEpoch(), 5);
+
+        assertTrue(stale.events.isEmpty());
+        assertInstanceOf(ChangeFeedGapException.class, stale.error);
+        assertEquals(6, current.next().getSequence());
+        assertNull(current.error);
+    }
+
+    private static CatalogChangeEvent event(long sequence) {
+        return CatalogChangeEvent.of(sequence, Instant.now(), null, new SimpleProduct(UUID.randomUUID(), "Товар " + sequence, 100));
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<CatalogChangeEvent> {
+        private final BlockingQueue<CatalogChangeEvent> events = new LinkedBlockingQueue<>();
+        private final long initialDemand;
+        private Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        RecordingSubscriber() {
+            this(Long.MAX_VALUE);
+        }
+
+        RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        CatalogChangeEvent next() throws InterruptedException {
+            CatalogChangeEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "Событие не пришло");
+            return event;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(CatalogChangeEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.skypro.skyshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.catalog.ImportReport;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.FixPriceProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.service.search.ParallelSearch;
+import org.skypro.skyshop.service.search.SearchCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImportServiceTest {
+
+    private StorageService storageService;
+    private SearchService searchService;
+    private CatalogImportService catalogImportService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService();
+        searchService = new SearchService(storageService, new SearchCache(100, Duration.ZERO), new ParallelSearch(false, 0, 1));
+        catalogImportService = new CatalogImportService(storageService, new ObjectMapper());
+    }
+
+    @Test
+    void importNdjson_WhenRowsValid_ShouldAddProductsAndIndexThem() throws IOException {
+        UUID id = UUID.fromString("33333333-3333-3333-3333-333333333333");
+        String body = "{\"id\":\"" + id + "\",\"name\":\"Импортный чайник\",\"price\":500,\"discountPercent\":20}\n"
+                + "\n"
+                + "{\"name\":\"Импортная кружка\",\"type\":\"FIX_PRICE\"}\n";
+
+        ImportReport report = catalogImportService.importNdjson(stream(body));
+
+        assertEquals(2, report.getImported());
+        assertEquals(0, report.getFailed());
+        Product product = storageService.getProductById(id);
+        assertInstanceOf(DiscountedProduct.class, product);
+        assertEquals(400, product.getPrice());
+        assertEquals(2, searchService.search("импортн").size());
+    }
+
+    @Test
+    void importNdjson_WhenRowsInvalid_ShouldReportThemAndKeepValidOnes() throws IOException {
+        String body = "{\"name\":\"Хороший товар\",\"price\":100}\n"
+                + "{\"name\":\"\",\"price\":100}\n"
+                + "{\"name\":\"Без цены\"}\n"
+                + "не json\n"
+                + "{\"name\":\"Скидка больше ста\",\"price\":100,\"discountPercent\":150}\n";
+
+        ImportReport report = catalogImportService.importNdjson(stream(body));
+
+        assertEquals(1, report.getImported());
+        assertEquals(4, report.getFailed());
+        List<Long> rows = report.getErrors().stream().map(ImportReport.RowError::getRow).toList();
+        assertEquals(List.of(2L, 3L, 4L, 5L), rows);
+        assertEquals("Название продукта не может быть пустым", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void importCsv_WhenQuotedCells_ShouldParseByHeader() throws IOException {
+        String body = "price,name,type\n"
+                + "250,\"Ручка, синяя\",\n"
+                + ",\"Набор \"\"Офис\"\"\",fix_price\n"
+                + "abc,Карандаш,\n";
+
+        ImportReport report = catalogImportService.importCsv(stream(body));
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(4, report.getErrors().get(0).getRow());
+        assertTrue(searchService.search("ручка").stream().anyMatch(result -> result.getName().equals("Ручка, синяя")));
+        assertTrue(storageService.getAllProducts().stream()
+                .anyMatch(product -> product instanceof FixPriceProduct && product.getName().equals("Набор \"Офис\"")));
+    }
+
+    @Test
+    void importCsv_WhenNoNameColumn_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> catalogImportService.importCsv(stream("id,price\n1,2\n")));
+    }
+
+    @Test
+    void importNdjson_WhenMoreRowsThanBatch_ShouldCapReportedErrors() throws IOException {
+        StringBuilder body = new StringBuilder();
+        int rows = CatalogImportService.BATCH_SIZE + 500;
+        for (int i = 0; i < rows; i++) {
+            body.append(i % 50 == 0 ? "{\"name\":\"Битый\",\"price\":-1}" : "{\"name\":\"Товар " + i + "\",\"price\":10}").append('\n');
+        }
+        int sizeBefore = storageService.getAllProducts().size();
+
+        ImportReport report = catalogImportService.importNdjson(stream(body.toString()));
+
+        assertEquals(rows / 50, report.getFailed());
+        assertEquals(rows - rows / 50, report.getImported());
+        assertEquals(CatalogImportService.MAX_REPORTED_ERRORS, report.getErrors().size());
+        assertEquals(sizeBefore + report.getImported(), storageService.getAllProducts().size());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
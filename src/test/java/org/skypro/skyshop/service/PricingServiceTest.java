@@ -0,0 +1,91 @@
+package org.skypro.skyshop.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.pricing.Promotion;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private StorageService storageService;
+    private MutableClock clock;
+    private PricingService pricingService;
+    private Product laptop;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new StorageService();
+        clock = new MutableClock(NOW);
+        pricingService = new PricingService(storageService, clock);
+        laptop = storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Ноутбук", 50000));
+    }
+
+    @Test
+    void getPrice_ShouldApplyPromotionOnlyWithinItsWindow() {
+        pricingService.addPromotion(new Promotion(null, "Распродажа", 20,
+                NOW.plus(Duration.ofHours(1)), NOW.plus(Duration.ofHours(2)), Set.of(laptop.getId())));
+
+        assertEquals(50000, pricingService.getPrice(laptop));
+        clock.now = NOW.plus(Duration.ofMinutes(90));
+        assertEquals(40000, pricingService.getPrice(laptop));
+        clock.now = NOW.plus(Duration.ofHours(2));
+        assertEquals(50000, pricingService.getPrice(laptop));
+    }
+
+    @Test
+    void getPrice_WhenPromotionsOverlap_ShouldUseBestPrice() {
+        pricingService.addPromotion(new Promotion(null, "Малая", 10, null, null, Set.of(laptop.getId())));
+        Promotion big = pricingService.addPromotion(new Promotion(null, "Большая", 30, null, null, Set.of(laptop.getId())));
+
+        assertEquals(35000, pricingService.getPrice(laptop));
+
+        pricingService.removePromotion(big.getId());
+        assertEquals(45000, pricingService.getPrice(laptop));
+    }
+
+    @Test
+    void getPrice_WhenPromotedProductChanges_ShouldRebuildTable() {
+        pricingService.addPromotion(new Promotion(null, "Распродажа", 50, null, null, Set.of(laptop.getId())));
+        assertEquals(25000, pricingService.getPrice(laptop));
+
+        Product repriced = storageService.addProduct(new SimpleProduct(laptop.getId(), "Ноутбук", 60000));
+
+        assertEquals(30000, pricingService.getPrice(repriced));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
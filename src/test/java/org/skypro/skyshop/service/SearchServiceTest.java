@@ -1,18 +1,23 @@
 package org.skypro.skyshop.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.CatalogPage;
 import org.skypro.skyshop.model.product.Product;
 import org.skypro.skyshop.model.product.SimpleProduct;
 import org.skypro.skyshop.model.search.SearchResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.search.ParallelSearch;
+import org.skypro.skyshop.service.search.SearchCache;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,18 +28,25 @@ class SearchServiceTest {
     @Mock
     private StorageService storageService;
 
-    @InjectMocks
+    private SearchCache searchCache;
+
     private SearchService searchService;
 
+    @BeforeEach
+    void setUp() {
+        searchCache = new SearchCache(100, Duration.ZERO);
+        searchService = new SearchService(storageService, searchCache, new ParallelSearch(false, 0, 1));
+    }
+
     @Test
     void search_WhenStorageIsEmpty_ShouldReturnEmptyList() {
-        when(storageService.getAllSearchables()).thenReturn(Collections.emptyList());
+        when(storageService.searchCandidates("игровой")).thenReturn(Collections.emptyList());
 
         Collection<SearchResult> results = searchService.search("игровой");
 
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(storageService, times(1)).getAllSearchables();
+        verify(storageService, times(1)).searchCandidates("игровой");
     }
 
     @Test
@@ -46,13 +58,13 @@ class SearchServiceTest {
         );
 
         List<Searchable> searchables = Arrays.asList(product2);
-        when(storageService.getAllSearchables()).thenReturn(new ArrayList<>(searchables));
+        when(storageService.searchCandidates("игровой")).thenReturn(new ArrayList<>(searchables));
 
         Collection<SearchResult> results = searchService.search("игровой");
 
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(storageService, times(1)).getAllSearchables();
+        verify(storageService, times(1)).searchCandidates("игровой");
     }
 
     @Test
@@ -76,7 +88,7 @@ class SearchServiceTest {
         );
 
         List<Searchable> searchables = Arrays.asList(product1, product2, article1);
-        when(storageService.getAllSearchables()).thenReturn(new ArrayList<>(searchables));
+        when(storageService.searchCandidates("игровой")).thenReturn(new ArrayList<>(searchables));
 
         Collection<SearchResult> results = searchService.search("игровой");
 
@@ -90,7 +102,7 @@ class SearchServiceTest {
         assertTrue(resultList.stream()
                 .anyMatch(r -> r.getName().equals("Обзор игровой мыши")));
 
-        verify(storageService, times(1)).getAllSearchables();
+        verify(storageService, times(1)).searchCandidates("игровой");
     }
 
     @Test
@@ -102,7 +114,7 @@ class SearchServiceTest {
         );
 
         List<Searchable> searchables = Arrays.asList(product1);
-        when(storageService.getAllSearchables()).thenReturn(new ArrayList<>(searchables));
+        when(storageService.searchCandidates("игровой")).thenReturn(new ArrayList<>(searchables));
 
         Collection<SearchResult> results1 = searchService.search("ИГРОВОЙ");
         Collection<SearchResult> results2 = searchService.search("игровой");
@@ -122,7 +134,7 @@ class SearchServiceTest {
         );
 
         List<Searchable> searchables = Arrays.asList(product1);
-        when(storageService.getAllSearchables()).thenReturn(new ArrayList<>(searchables));
+        when(storageService.searchCandidates("ноут")).thenReturn(new ArrayList<>(searchables));
 
         Collection<SearchResult> results = searchService.search("ноут");
 
@@ -208,4 +220,186 @@ class SearchServiceTest {
         assertNotNull(results);
         assertEquals(2, results.size());
     }
+
+    @Test
+    void searchPage_ShouldReturnMatchesOrderedByIdWithCursor() {
+        Product product1 = new SimpleProduct(
+                UUID.fromString("11111111-1111-1111-1111-111111111111"),
+                "Игровой ноутбук",
+                50000
+        );
+
+        Product product2 = new SimpleProduct(
+                UUID.fromString("22222222-2222-2222-2222-222222222222"),
+                "Офисный монитор",
+                15000
+        );
+
+        Article article1 = new Article(
+                UUID.fromString("33333333-3333-3333-3333-333333333333"),
+                "Обзор игровой мыши",
+                "Современные игровые мыши имеют высокий DPI"
+        );
+
+        Product product3 = new SimpleProduct(
+                UUID.fromString("44444444-4444-4444-4444-444444444444"),
+                "Игровой монитор",
+                30000
+        );
+
+        List<Searchable> searchables = Arrays.asList(product3, article1, product2, product1);
+        when(storageService.searchCandidates("игровой")).thenReturn(new ArrayList<>(searchables));
+
+        CatalogPage<SearchResult> firstPage = searchService.searchPage("игровой", null, 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(product1.getId(), firstPage.getItems().get(0).getId());
+        assertEquals(article1.getId(), firstPage.getItems().get(1).getId());
+        assertEquals(article1.getId(), firstPage.getNextCursor());
+
+        CatalogPage<SearchResult> secondPage = searchService.searchPage("игровой", firstPage.getNextCursor(), 2);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(product3.getId(), secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void searchTop_ShouldRankNameMatchesAboveArticleTextAndKeepOnlyLimit() {
+        Article textMatch = new Article(
+                UUID.fromString("11111111-1111-1111-1111-111111111111"),
+                "Обзор периферии",
+                "Какую мышь выбрать для работы"
+        );
+
+        Article titleMatch = new Article(
+                UUID.fromString("22222222-2222-2222-2222-222222222222"),
+                "Беспроводная мышь за неделю",
+                "Опыт использования"
+        );
+
+        Product prefixMatch = new SimpleProduct(
+                UUID.fromString("33333333-3333-3333-3333-333333333333"),
+                "Мышь игровая",
+                5000
+        );
+
+        List<Searchable> searchables = Arrays.asList(textMatch, titleMatch, prefixMatch);
+        when(storageService.searchCandidates("мышь")).thenReturn(new ArrayList<>(searchables));
+
+        List<SearchResult> results = searchService.searchTop("Мышь", 2);
+
+        assertEquals(2, results.size());
+        assertEquals(prefixMatch.getId(), results.get(0).getId());
+        assertEquals(titleMatch.getId(), results.get(1).getId());
+    }
+
+    @Test
+    void search_WhenRepeated_ShouldServeFromCacheUntilMatchingItemChanges() {
+        Product product1 = new SimpleProduct(
+                UUID.fromString("11111111-1111-1111-1111-111111111111"),
+                "Игровой ноутбук",
+                50000
+        );
+
+        Product product2 = new SimpleProduct(
+                UUID.fromString("22222222-2222-2222-2222-222222222222"),
+                "Игровой монитор",
+                30000
+        );
+
+        when(storageService.searchCandidates("игровой"))
+                .thenReturn(new ArrayList<>(List.of(product1)))
+                .thenReturn(new ArrayList<>(List.of(product1, product2)));
+
+        assertEquals(1, searchService.search("Игровой").size());
+        assertEquals(1, searchService.search("игровой ").size());
+        verify(storageService, times(1)).searchCandidates("игровой");
+
+        searchCache.onSearchableChanged(null, product2);
+
+        assertEquals(2, searchService.search("игровой").size());
+        verify(storageService, times(2)).searchCandidates("игровой");
+        assertEquals(1, searchService.getCacheStats().getHits());
+    }
+
+    @Test
+    void search_ShouldFoldYoAndCollapseWhitespace() {
+        Product product1 = new SimpleProduct(
+                UUID.fromString("11111111-1111-1111-1111-111111111111"),
+                "Ёлочная   игрушка",
+                500
+        );
+
+        List<Searchable> searchables = Arrays.asList(product1);
+        when(storageService.searchCandidates("елочная игрушка")).thenReturn(new ArrayList<>(searchables));
+
+        Collection<SearchResult> results = searchService.search("  ЕЛОЧНАЯ\tигрушка ");
+
+        assertEquals(1, results.size());
+        verify(storageService, times(1)).searchCandidates("елочная игрушка");
+    }
+
+    @Test
+    void search_WhenParallelModeEnabled_ShouldReturnSameResultsInOrder() {
+        List<Searchable> searchables = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String name = i % 3 == 0 ? "Игровой товар " + i : "Офисный товар " + i;
+            searchables.add(new SimpleProduct(new UUID(0, i), name, 1000 + i));
+        }
+        when(storageService.searchCandidates("игровой")).thenReturn(searchables);
+
+        ParallelSearch parallelSearch = new ParallelSearch(true, 1, 4);
+        try {
+            SearchService parallelService = new SearchService(storageService, new SearchCache(10, Duration.ZERO), parallelSearch);
+
+            List<SearchResult> results = new ArrayList<>(parallelService.search("игровой"));
+
+            assertEquals(3334, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(new UUID(0, i * 3L), results.get(i).getId());
+            }
+        } finally {
+            parallelSearch.destroy();
+        }
+    }
+
+    @Test
+    void search_ShouldRecordCandidatesMatchesAndCacheHits() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SearchService measuredService = new SearchService(storageService, searchCache,
+                new ParallelSearch(false, 0, 1), meterRegistry);
+        Product laptop = new SimpleProduct(UUID.randomUUID(), "Игровой ноутбук", 50000);
+        Product monitor = new SimpleProduct(UUID.randomUUID(), "Игровой монитор", 15000);
+        when(storageService.searchCandidates("ноутбук")).thenReturn(List.of(laptop, monitor));
+
+        measuredService.search("ноутбук");
+        measuredService.search("ноутбук");
+
+        assertEquals(2, meterRegistry.get("skyshop.search.candidates").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("skyshop.search.matches").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("skyshop.search").tag("cache", "hit").timer().count());
+        assertEquals(1, meterRegistry.get("skyshop.search").tag("cache", "miss").timer().count());
+    }
+
+    @Test
+    void searchTopPageAndStream_ShouldRecordSearchTimerTaggedWithMode() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SearchService measuredService = new SearchService(storageService, searchCache,
+                new ParallelSearch(false, 0, 1), meterRegistry);
+        Product laptop = new SimpleProduct(UUID.randomUUID(), "Игровой ноутбук", 50000);
+        when(storageService.searchCandidates("ноутбук")).thenReturn(List.of(laptop));
+
+        measuredService.searchTop("ноутбук", 10);
+        measuredService.searchPage("ноутбук", null, 10);
+        try (Stream<SearchResult> results = measuredService.searchStream("ноутбук")) {
+            assertEquals(0, meterRegistry.get("skyshop.search").tag("mode", "stream").timer().count());
+            assertEquals(1, results.count());
+        }
+
+        assertEquals(1, meterRegistry.get("skyshop.search").tag("mode", "top").timer().count());
+        assertEquals(1, meterRegistry.get("skyshop.search").tag("mode", "page").timer().count());
+        assertEquals(1, meterRegistry.get("skyshop.search").tag("mode", "stream").timer().count());
+        assertEquals(0, meterRegistry.get("skyshop.search").tag("mode", "full").tag("cache", "miss").timer().count());
+    }
 }
@@ -0,0 +1,127 @@
+package org.skypro.skyshop.service;
+
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.catalog.CatalogChangeEvent;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageServiceTest {
+
+    @Test
+    void getCatalogSnapshot_AfterWrite_ShouldBeRebuiltForNewVersion() {
+        StorageService storageService = new StorageService();
+        CatalogSnapshot before = storageService.getCatalogSnapshot();
+
+        storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Новый товар", 100));
+
+        CatalogSnapshot after = storageService.getCatalogSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(before.getProducts().size() + 1, after.getProducts().size());
+        assertSame(after, storageService.getCatalogSnapshot());
+    }
+
+    @Test
+    void getCatalogSnapshot_UnderConcurrentWrites_ShouldMatchItsVersion() throws Exception {
+        StorageService storageService = new StorageService();
+        CatalogSnapshot initial = storageService.getCatalogSnapshot();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Товар " + i, 100));
+                }
+            });
+            while (!writer.isDone()) {
+                // Каждая запись добавляет новый товар, поэтому размер снимка
+                // однозначно определяется его версией
+                CatalogSnapshot snapshot = storageService.getCatalogSnapshot();
+                assertEquals(initial.getProducts().size() + snapshot.getVersion() - initial.getVersion(),
+                        snapshot.getProducts().size());
+            }
+            writer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void addProducts_ShouldNotifyListenersOnceAndPublishEventPerProduct() {
+        StorageService storageService = new StorageService();
+        long version = storageService.getCatalogVersion();
+        List<Integer> batches = new CopyOnWriteArrayList<>();
+        storageService.addChangeListener(new CatalogChangeListener() {
+            @Override
+            public void onSearchableChanged(Searchable previous, Searchable current) {
+                batches.add(1);
+            }
+
+            @Override
+            public void onSearchablesChanged(List<? extends Searchable> previous, List<? extends Searchable> current) {
+                batches.add(current.size());
+            }
+        });
+        UUID id = UUID.randomUUID();
+
+        storageService.addProducts(List.of(
+                new SimpleProduct(id, "Монитор", 20000),
+                new SimpleProduct(UUID.randomUUID(), "Кабель", 500),
+                new SimpleProduct(id, "Монитор", 18000)));
+
+        assertEquals(List.of(3), batches);
+        assertEquals(version + 3, storageService.getCatalogVersion());
+        List<CatalogChangeEvent> events = storageService.getChangeFeed().eventsAfter(version, 10);
+        assertEquals(List.of(version + 1, version + 2, version + 3),
+                events.stream().map(CatalogChangeEvent::getSequence).toList());
+        assertEquals(CatalogChangeEvent.Type.ADDED, events.get(0).getType());
+        assertEquals(CatalogChangeEvent.Type.UPDATED, events.get(2).getType());
+    }
+
+    @Test
+    void addProduct_FromConcurrentWriters_ShouldKeepSnapshotsAndVersionsConsistent() throws Exception {
+        StorageService storageService = new StorageService();
+        CatalogSnapshot initial = storageService.getCatalogSnapshot();
+        int writers = 4;
+        int writesPerWriter = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < writesPerWriter; i++) {
+                        storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Товар " + i, 100));
+                    }
+                }));
+            }
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                CatalogSnapshot snapshot = storageService.getCatalogSnapshot();
+                assertEquals(initial.getProducts().size() + snapshot.getVersion() - initial.getVersion(),
+                        snapshot.getProducts().size());
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = writers * writesPerWriter;
+        assertEquals(initial.getVersion() + total, storageService.getCatalogVersion());
+        assertEquals(initial.getProducts().size() + total, storageService.getProductCount());
+        List<CatalogChangeEvent> events = storageService.getChangeFeed().eventsAfter(initial.getVersion(), total);
+        for (int i = 0; i < total; i++) {
+            assertEquals(initial.getVersion() + i + 1, events.get(i).getSequence());
+        }
+    }
+}
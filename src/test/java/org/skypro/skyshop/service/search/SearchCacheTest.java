@@ -0,0 +1,101 @@
+package org.skypro.skyshop.service.search;
+
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.SearchResult;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private final Product laptop = new SimpleProduct(
+            UUID.fromString("11111111-1111-1111-1111-111111111111"),
+            "Игровой ноутбук",
+            50000
+    );
+
+    private final List<SearchResult> results = List.of(SearchResult.fromSearchable(laptop));
+
+    @Test
+    void onSearchableChanged_ShouldInvalidateOnlyPatternsContainedInChangedItem() {
+        SearchCache cache = new SearchCache(10, Duration.ZERO);
+        cache.put("ноут", results, cache.ticket());
+        cache.put("монитор", List.of(), cache.ticket());
+
+        cache.onSearchableChanged(null, new SimpleProduct(UUID.randomUUID(), "Рабочий ноутбук", 40000));
+
+        assertNull(cache.get("ноут"));
+        assertNotNull(cache.get("монитор"));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void onSearchablesChanged_ShouldClearCacheOnceForWholeBatch() {
+        SearchCache cache = new SearchCache(10, Duration.ZERO);
+        long ticket = cache.ticket();
+        cache.put("ноут", results, ticket);
+        cache.put("монитор", List.of(), ticket);
+
+        cache.onSearchablesChanged(Arrays.asList(null, null), List.of(laptop,
+                new SimpleProduct(UUID.randomUUID(), "Клавиатура", 3000)));
+        cache.put("клав", List.of(), ticket);
+
+        assertNull(cache.get("ноут"));
+        assertNull(cache.get("монитор"));
+        assertNull(cache.get("клав"));
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void put_WhenCatalogChangedAfterTicket_ShouldNotStoreStaleResult() {
+        SearchCache cache = new SearchCache(10, Duration.ZERO);
+        long ticket = cache.ticket();
+
+        cache.onSearchableChanged(null, laptop);
+        cache.put("ноут", results, ticket);
+
+        assertNull(cache.get("ноут"));
+    }
+
+    @Test
+    void put_WhenFull_ShouldEvictEntryNotReadSinceLastSweep() {
+        SearchCache cache = new SearchCache(2, Duration.ZERO);
+        cache.put("первый", results, cache.ticket());
+        cache.put("второй", results, cache.ticket());
+        cache.get("первый");
+
+        cache.put("третий", results, cache.ticket());
+
+        assertNotNull(cache.get("первый"));
+        assertNull(cache.get("второй"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void get_WhenMoreUnrelatedChangesThanChangeLogHolds_ShouldTreatEntryAsStale() {
+        SearchCache cache = new SearchCache(10, Duration.ZERO);
+        cache.put("ноут", results, cache.ticket());
+        cache.put("монитор", List.of(), cache.ticket());
+        Product keyboard = new SimpleProduct(UUID.randomUUID(), "Клавиатура", 3000);
+
+        for (int i = 0; i < SearchCache.CHANGE_LOG_SIZE - 1; i++) {
+            cache.onSearchableChanged(null, keyboard);
+        }
+        assertNotNull(cache.get("ноут"));
+        for (int i = 0; i < SearchCache.CHANGE_LOG_SIZE - 1; i++) {
+            cache.onSearchableChanged(null, keyboard);
+        }
+
+        assertNull(cache.get("монитор"));
+        assertNotNull(cache.get("ноут"));
+        cache.onSearchableChanged(null, keyboard);
+        assertNotNull(cache.get("ноут"));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+}
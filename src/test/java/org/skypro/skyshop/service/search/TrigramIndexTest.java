@@ -0,0 +1,158 @@
+package org.skypro.skyshop.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.Searchable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+    private Product laptop;
+    private Product monitor;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+
+        laptop = new SimpleProduct(
+                UUID.fromString("11111111-1111-1111-1111-111111111111"),
+                "Игровой ноутбук",
+                50000
+        );
+        monitor = new SimpleProduct(
+                UUID.fromString("22222222-2222-2222-2222-222222222222"),
+                "Офисный монитор",
+                15000
+        );
+        article = new Article(
+                UUID.fromString("33333333-3333-3333-3333-333333333333"),
+                "Обзор игровой мыши",
+                "Современные игровые мыши имеют высокий DPI"
+        );
+
+        index.add(laptop);
+        index.add(monitor);
+        index.add(article);
+    }
+
+    @Test
+    void candidates_WhenPatternMatches_ShouldReturnOnlyItemsWithAllTrigrams() {
+        List<Searchable> candidates = index.candidates("игровой");
+
+        assertEquals(2, candidates.size());
+        assertTrue(candidates.contains(laptop));
+        assertTrue(candidates.contains(article));
+    }
+
+    @Test
+    void candidates_WhenTrigramIsUnknown_ShouldReturnEmptyList() {
+        assertTrue(index.candidates("клавиатура").isEmpty());
+    }
+
+    @Test
+    void candidates_WhenPatternIsTooShort_ShouldThrowException() {
+        assertFalse(TrigramIndex.isIndexable("иг"));
+        assertThrows(IllegalArgumentException.class, () -> index.candidates("иг"));
+    }
+
+    @Test
+    void add_WhenItemWithSameIdIsReplaced_ShouldIndexOnlyNewVersion() {
+        Product renamed = new SimpleProduct(laptop.getId(), "Рабочий ноутбук", 40000);
+
+        index.add(renamed);
+
+        assertEquals(3, index.size());
+        assertTrue(index.candidates("игровой").stream().noneMatch(item -> item == renamed));
+        assertEquals(List.of(renamed), index.candidates("рабочий"));
+    }
+
+    @Test
+    void remove_ShouldExcludeItemFromCandidates() {
+        index.remove(monitor);
+
+        assertEquals(2, index.size());
+        assertTrue(index.candidates("монитор").isEmpty());
+    }
+
+    @Test
+    void candidates_WhenIndexIsGrowingConcurrently_ShouldAlwaysFindStableItem() throws Exception {
+        int initialSize = index.size();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    index.add(new SimpleProduct(UUID.randomUUID(), "Игровой товар " + i, 100));
+                }
+            });
+            while (!writer.isDone()) {
+                assertTrue(index.candidates("ноутбук").contains(laptop));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(initialSize + 20_000, index.size());
+    }
+
+    @Test
+    void candidates_ShouldReturnItemsFromAllShardsInInsertionOrder() {
+        TrigramIndex fresh = new TrigramIndex();
+        List<Searchable> added = new ArrayList<>();
+        for (int i = 0; i < TrigramIndex.SHARDS * 8; i++) {
+            Product product = new SimpleProduct(UUID.randomUUID(), "Игровой товар " + i, 100);
+            fresh.add(product);
+            added.add(product);
+        }
+
+        assertEquals(added, fresh.candidates("игровой"));
+    }
+
+    @Test
+    void add_FromConcurrentWriters_ShouldIndexEveryItem() throws Exception {
+        int writers = 4;
+        int itemsPerWriter = 5_000;
+        int initialSize = index.size();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < itemsPerWriter; i++) {
+                        Product product = new SimpleProduct(UUID.randomUUID(), "Игровой товар " + i, 100);
+                        index.add(product);
+                        // Каждый второй товар сразу заменяется, чтобы шарды сжимались
+                        if (i % 2 == 0) {
+                            index.add(new SimpleProduct(product.getId(), "Рабочий товар " + i, 100));
+                        }
+                    }
+                }));
+            }
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                assertTrue(index.candidates("ноутбук").contains(laptop));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(initialSize + writers * itemsPerWriter, index.size());
+        assertEquals(writers * itemsPerWriter / 2, index.candidates("рабочий товар").size());
+    }
+}
@@ -0,0 +1,141 @@
+package org.skypro.skyshop.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skypro.skyshop.exception.NoSuchProductException;
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.service.StorageService;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCatalogJournalTest {
+
+    @TempDir
+    Path dataDirectory;
+
+    private final List<FileCatalogJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (FileCatalogJournal journal : journals) {
+            journal.destroy();
+        }
+    }
+
+    @Test
+    void restart_ShouldRestoreCatalogFromJournal() {
+        StorageService storageService = open();
+        Product laptop = storageService.addProduct(new DiscountedProduct(UUID.randomUUID(), "Ноутбук", 50000, 10));
+        storageService.addArticle(new Article(UUID.randomUUID(), "Обзор", "Длинный текст обзора"));
+
+        StorageService restarted = open();
+
+        assertEquals(storageService.getProductCount(), restarted.getProductCount());
+        assertEquals(storageService.getArticleCount(), restarted.getArticleCount());
+        assertEquals(45000, restarted.getProductById(laptop.getId()).getPrice());
+        assertEquals(storageService.getCatalogVersion(), restarted.getCatalogVersion());
+    }
+
+    @Test
+    void restart_AfterBatchWrite_ShouldRestoreEveryProductOfBatch() {
+        StorageService storageService = open();
+        UUID id = UUID.randomUUID();
+        storageService.addProducts(List.of(
+                new SimpleProduct(id, "Клавиатура", 3000),
+                new SimpleProduct(UUID.randomUUID(), "Мышь", 1500),
+                new SimpleProduct(id, "Клавиатура", 2500)));
+
+        StorageService restarted = open();
+
+        assertEquals(storageService.getProductCount(), restarted.getProductCount());
+        assertEquals(2500, restarted.getProductById(id).getPrice());
+        assertEquals(storageService.getCatalogVersion(), restarted.getCatalogVersion());
+    }
+
+    @Test
+    void restart_ShouldLoadSnapshotPlusJournalTail() throws Exception {
+        StorageService storageService = open();
+        UUID id = UUID.randomUUID();
+        storageService.addProduct(new SimpleProduct(id, "Мышь", 5000));
+        storageService.snapshotCatalog();
+        storageService.addProduct(new SimpleProduct(id, "Мышь", 4000));
+
+        StorageService restarted = open();
+
+        assertEquals(4000, restarted.getProductById(id).getPrice());
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".bin")).count());
+        }
+    }
+
+    @Test
+    void restart_WhenJournalTailIsTorn_ShouldDropOnlyBrokenRecord() throws Exception {
+        StorageService storageService = open();
+        UUID id = UUID.randomUUID();
+        storageService.addProduct(new SimpleProduct(id, "Клавиатура", 7000));
+        Path segment;
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        StorageService restarted = open();
+
+        assertEquals(7000, restarted.getProductById(id).getPrice());
+        assertEquals(storageService.getCatalogVersion(), restarted.getCatalogVersion());
+    }
+
+    @Test
+    void restart_ShouldNotRestoreRemovedProduct() {
+        StorageService storageService = open();
+        UUID id = UUID.randomUUID();
+        storageService.addProduct(new SimpleProduct(id, "Наушники", 3000));
+        storageService.removeProduct(id);
+
+        StorageService restarted = open();
+
+        assertThrows(NoSuchProductException.class, () -> restarted.getProductById(id));
+        assertEquals(storageService.getProductCount(), restarted.getProductCount());
+        assertEquals(storageService.getCatalogVersion(), restarted.getCatalogVersion());
+    }
+
+    @Test
+    void addProduct_AfterJournalFailure_ShouldRejectWriteWithoutApplyingIt() throws Exception {
+        StorageService storageService = open();
+        storageService.snapshotCatalog();
+        // Следующий сегмент не удастся создать: файл с его именем уже есть
+        long nextSequence = storageService.getCatalogVersion() + 1;
+        Files.createFile(dataDirectory.resolve(String.format("journal-%020d.log", nextSequence)));
+        UUID failedId = UUID.randomUUID();
+        assertThrows(UncheckedIOException.class,
+                () -> storageService.addProduct(new SimpleProduct(failedId, "Монитор", 15000)));
+        long version = storageService.getCatalogVersion();
+
+        UUID rejectedId = UUID.randomUUID();
+        assertThrows(UncheckedIOException.class,
+                () -> storageService.addProduct(new SimpleProduct(rejectedId, "Колонки", 2000)));
+
+        assertTrue(storageService.findProductById(rejectedId).isEmpty());
+        assertEquals(version, storageService.getCatalogVersion());
+    }
+
+    private StorageService open() {
+        FileCatalogJournal journal = new FileCatalogJournal(dataDirectory);
+        journals.add(journal);
+        return new StorageService(new SimpleMeterRegistry(), journal);
+    }
+}
@@ -0,0 +1,280 @@
+package org.skypro.skyshop.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skypro.skyshop.model.article.Article;
+import org.skypro.skyshop.model.catalog.CatalogPage;
+import org.skypro.skyshop.model.catalog.CatalogSnapshot;
+import org.skypro.skyshop.model.product.DiscountedProduct;
+import org.skypro.skyshop.model.product.FixPriceProduct;
+import org.skypro.skyshop.model.product.Product;
+import org.skypro.skyshop.model.product.SimpleProduct;
+import org.skypro.skyshop.model.search.SearchKey;
+import org.skypro.skyshop.model.search.Searchable;
+import org.skypro.skyshop.service.StorageService;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private List<Product> products;
+    private Article article;
+    private Path file;
+    private MappedCatalog mappedCatalog;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            products.add(switch (i % 3) {
+                case 0 -> new SimpleProduct(id, "Товар " + i, 100 + i);
+                case 1 -> new DiscountedProduct(id, "Скидка " + i, 1000 + i, i % 50);
+                default -> new FixPriceProduct(id, "Фикс " + i);
+            });
+        }
+        article = new Article(UUID.randomUUID(), "Обзор", "Текст обзора");
+        file = directory.resolve("catalog.col");
+        ColumnarCatalogWriter.write(file, CatalogSnapshot.of(1, Instant.now(), products, List.of(article)));
+        mappedCatalog = new MappedCatalog(file);
+    }
+
+    @Test
+    void findProduct_ShouldMaterializeSameProduct() {
+        for (Product product : products) {
+            Product mapped = mappedCatalog.findProduct(product.getId());
+
+            assertEquals(product.getClass(), mapped.getClass());
+            assertEquals(product.getName(), mapped.getName());
+            assertEquals(product.getPrice(), mapped.getPrice());
+        }
+        assertNull(mappedCatalog.findProduct(UUID.randomUUID()));
+    }
+
+    @Test
+    void getProductPage_ShouldMergeMappedAndInMemoryProducts() {
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), new InMemoryCatalogJournal(), mappedCatalog);
+        Product overridden = storageService.addProduct(new SimpleProduct(products.get(0).getId(), "Новая версия", 1));
+
+        Set<UUID> seen = new HashSet<>();
+        UUID cursor = null;
+        UUID previous = null;
+        do {
+            CatalogPage<Product> page = storageService.getProductPage(cursor, 100);
+            for (Product product : page.getItems()) {
+                assertTrue(previous == null || product.getId().compareTo(previous) > 0);
+                assertTrue(seen.add(product.getId()));
+                previous = product.getId();
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(storageService.getProductCount(), seen.size());
+        assertTrue(products.stream().allMatch(product -> seen.contains(product.getId())));
+        assertEquals("Новая версия", storageService.getProductById(overridden.getId()).getName());
+    }
+
+    @Test
+    void reads_ShouldIncludeMappedLayerWithInMemoryOverrides() {
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), new InMemoryCatalogJournal(), mappedCatalog);
+        int inMemoryProducts = storageService.getCatalogSnapshot().getProducts().size() - products.size();
+        storageService.addProduct(new SimpleProduct(products.get(1).getId(), "Новая версия", 1));
+
+        List<Product> all = List.copyOf(storageService.getAllProducts());
+        assertEquals(products.size() + inMemoryProducts, all.size());
+        assertEquals(all.size(), storageService.getProductCount());
+        assertEquals("Новая версия", all.stream()
+                .filter(product -> product.getId().equals(products.get(1).getId()))
+                .findFirst()
+                .orElseThrow()
+                .getName());
+        assertTrue(storageService.getAllArticles().stream().anyMatch(item -> item.getId().equals(article.getId())));
+        assertTrue(storageService.getAllSearchables().stream().anyMatch(item -> item.getId().equals(article.getId())));
+        assertTrue(storageService.getArticlePage(null, 100).getItems().stream()
+                .anyMatch(item -> item.getId().equals(article.getId())));
+    }
+
+    @Test
+    void searchCandidates_ShouldFindMappedItemsButNotOverriddenVersions() {
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), new InMemoryCatalogJournal(), mappedCatalog);
+        UUID overriddenId = products.get(3).getId();
+        storageService.addProduct(new SimpleProduct(overriddenId, "Переименованный", 1));
+
+        Collection<Searchable> found = storageService.searchCandidates(SearchKey.normalize("Товар"));
+        Collection<Searchable> articles = storageService.searchCandidates(SearchKey.normalize("текст обзора"));
+
+        long expected = products.stream()
+                .filter(product -> product.getName().startsWith("Товар") && !product.getId().equals(overriddenId))
+                .count();
+        assertEquals(expected, found.stream().filter(item -> item.getName().startsWith("Товар")).count());
+        assertTrue(found.stream().noneMatch(item -> item.getId().equals(overriddenId)));
+        assertTrue(articles.stream().anyMatch(item -> item.getId().equals(article.getId())));
+    }
+
+    @Test
+    void findMatching_ShouldReturnExactlyItemsWhoseKeyContainsPattern() {
+        for (String pattern : List.of("товар 1", "скидка", "фикс 49", "кст обз", "ар 12", "нет такого")) {
+            String normalized = SearchKey.normalize(pattern);
+            Set<UUID> expected = new HashSet<>();
+            for (Product product : products) {
+                if (product.getSearchKey().contains(normalized)) {
+                    expected.add(product.getId());
+                }
+            }
+            if (article.getSearchKey().contains(normalized)) {
+                expected.add(article.getId());
+            }
+
+            List<Searchable> found = mappedCatalog.findMatching(normalized);
+
+            assertEquals(expected.size(), found.size(), pattern);
+            assertEquals(expected, found.stream().map(Searchable::getId).collect(Collectors.toSet()), pattern);
+        }
+    }
+
+    @Test
+    void constructor_WhenTrigramPostingPointsPastRows_ShouldRejectIt() throws Exception {
+        Path broken = directory.resolve("postings.col");
+        byte[] bytes = Files.readAllBytes(file);
+        // Последняя запись файла - строка последнего списка триграмм
+        ByteBuffer.wrap(bytes).putInt(bytes.length - Integer.BYTES, products.size() + 1);
+        Files.write(broken, bytes);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new MappedCatalog(broken));
+        assertTrue(exception.getMessage().contains("индексе триграмм"));
+    }
+
+    @Test
+    void restart_WithMappedBase_ShouldKeepBaseOutOfJournalSnapshotAndHeap() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        FileCatalogJournal journal = new FileCatalogJournal(journalDirectory);
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), journal, mappedCatalog);
+        storageService.snapshotCatalog();
+        journal.destroy();
+
+        FileCatalogJournal reopenedJournal = new FileCatalogJournal(journalDirectory);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try {
+            StorageService restarted = new StorageService(meterRegistry, reopenedJournal, mappedCatalog);
+
+            assertEquals(0, heapCatalogSize(meterRegistry, "product"));
+            assertEquals(0, heapCatalogSize(meterRegistry, "article"));
+            assertEquals(products.size(), restarted.getProductCount());
+            assertEquals(products.get(0).getName(), restarted.getProductById(products.get(0).getId()).getName());
+        } finally {
+            reopenedJournal.destroy();
+        }
+    }
+
+    @Test
+    void restart_WithMappedBase_ShouldRestoreOnlyInMemoryOverrides() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        FileCatalogJournal journal = new FileCatalogJournal(journalDirectory);
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), journal, mappedCatalog);
+        storageService.addProduct(new SimpleProduct(products.get(0).getId(), "Новая версия", 1));
+        storageService.snapshotCatalog();
+        journal.destroy();
+
+        FileCatalogJournal reopenedJournal = new FileCatalogJournal(journalDirectory);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try {
+            StorageService restarted = new StorageService(meterRegistry, reopenedJournal, mappedCatalog);
+
+            assertEquals(1, heapCatalogSize(meterRegistry, "product"));
+            assertEquals(products.size(), restarted.getProductCount());
+            assertEquals("Новая версия", restarted.getProductById(products.get(0).getId()).getName());
+        } finally {
+            reopenedJournal.destroy();
+        }
+    }
+
+    @Test
+    void write_WhenFileWouldExceedLimit_ShouldFailWithoutWritingFile() throws Exception {
+        long size = Files.size(file);
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, Instant.now(), products, List.of(article));
+        Path exact = directory.resolve("exact.col");
+        Path tooLarge = directory.resolve("too-large.col");
+
+        ColumnarCatalogWriter.write(exact, snapshot, size);
+        assertThrows(UncheckedIOException.class, () -> ColumnarCatalogWriter.write(tooLarge, snapshot, size - 1));
+
+        assertEquals(size, Files.size(exact));
+        assertFalse(Files.exists(tooLarge));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.filter(path -> path.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void exportColumnar_ShouldWriteMergedCatalogReadableByMappedCatalog() {
+        StorageService storageService = new StorageService(new SimpleMeterRegistry(), new InMemoryCatalogJournal(), mappedCatalog);
+        Product added = storageService.addProduct(new SimpleProduct(UUID.randomUUID(), "Новый товар", 700));
+
+        Path exported = directory.resolve("export/catalog.columnar");
+        storageService.exportColumnar(exported);
+        MappedCatalog reopened = new MappedCatalog(exported);
+
+        assertEquals(storageService.getProductCount(), reopened.getProductCount());
+        assertEquals(storageService.getArticleCount(), reopened.getArticleCount());
+        assertEquals("Новый товар", reopened.findProduct(added.getId()).getName());
+        assertEquals(products.get(0).getName(), reopened.findProduct(products.get(0).getId()).getName());
+    }
+
+    @Test
+    void constructor_WhenFileIsTruncated_ShouldRejectIt() throws Exception {
+        Path truncated = directory.resolve("truncated.col");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new MappedCatalog(truncated));
+        assertTrue(exception.getMessage().contains("повреждён"));
+    }
+
+    @Test
+    void constructor_WhenHeaderCountPointsPastFile_ShouldRejectIt() throws Exception {
+        Path broken = directory.resolve("broken.col");
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(2 * Integer.BYTES, Integer.MAX_VALUE);
+        Files.write(broken, bytes);
+
+        assertThrows(IllegalStateException.class, () -> new MappedCatalog(broken));
+    }
+
+    @Test
+    void constructor_WhenStringOffsetsDecrease_ShouldRejectIt() throws Exception {
+        Path broken = directory.resolve("offsets.col");
+        byte[] bytes = Files.readAllBytes(file);
+        // Первое смещение названия после заголовка и пяти колонок товаров
+        int nameOffsets = 5 * Integer.BYTES + products.size() * (2 * Long.BYTES + 3 * Integer.BYTES);
+        ByteBuffer.wrap(bytes).putInt(nameOffsets + 2 * Integer.BYTES, -1);
+        Files.write(broken, bytes);
+
+        assertThrows(IllegalStateException.class, () -> new MappedCatalog(broken));
+    }
+
+    private static double heapCatalogSize(SimpleMeterRegistry meterRegistry, String type) {
+        return meterRegistry.get("skyshop.catalog.size").tag("type", type).gauge().value();
+    }
+}
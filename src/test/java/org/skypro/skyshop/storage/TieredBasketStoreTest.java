@@ -0,0 +1,180 @@
+package org.skypro.skyshop.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skypro.skyshop.model.basket.BasketTable;
+import org.skypro.skyshop.model.basket.ProductBasket;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredBasketStoreTest {
+
+    private static final Duration SPILL_TTL = Duration.ofMinutes(30);
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void evictIdleBaskets_ShouldSpillToDiskAndLoadBackLazily() {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+        UUID laptopId = UUID.fromString("11111111-1111-1111-1111-111111111111");
+        ProductBasket productBasket = new ProductBasket(store, "session-1");
+        productBasket.addProduct(laptopId, 50000);
+        productBasket.addProduct(laptopId, 50000);
+
+        store.evictIdleBaskets();
+
+        assertEquals(0, store.getHotBasketCount());
+        assertEquals(2, productBasket.getProductQuantity(laptopId));
+        assertEquals(100000, productBasket.getSummary().getTotal());
+        assertEquals(1, store.getHotBasketCount());
+    }
+
+    @Test
+    void evictIdleBaskets_ShouldKeepRecentlyUsedBasketsInMemory() {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ofHours(1), SPILL_TTL);
+        BasketTable table = store.withBasket("session-1", basketItems -> {
+            basketItems.add(UUID.randomUUID(), 1000);
+            return basketItems;
+        });
+
+        store.evictIdleBaskets();
+
+        assertEquals(1, store.getHotBasketCount());
+        assertSame(table, store.withBasket("session-1", basketItems -> basketItems));
+    }
+
+    @Test
+    void remove_ShouldDropBasketFromBothTiers() {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+        store.withBasket("session-1", basketItems -> basketItems.add(UUID.randomUUID(), 1000));
+        store.evictIdleBaskets();
+
+        store.remove("session-1");
+
+        assertEquals(0, (int) store.withBasket("session-1", BasketTable::size));
+    }
+
+    @Test
+    void addProduct_WhenRacingWithEviction_ShouldNotLoseUpdates() throws Exception {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+        ProductBasket productBasket = new ProductBasket(store, "session-1");
+        UUID laptopId = UUID.fromString("11111111-1111-1111-1111-111111111111");
+        int threads = 8;
+        int addsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> evictor = executor.submit(() -> {
+                await(start);
+                while (running.get()) {
+                    store.evictIdleBaskets();
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                writers.add(executor.submit(() -> {
+                    await(start);
+                    for (int j = 0; j < addsPerThread; j++) {
+                        productBasket.addProduct(laptopId, 1000);
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            evictor.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * addsPerThread, productBasket.getProductQuantity(laptopId));
+        assertEquals(threads * addsPerThread * 1000L, productBasket.getSummary().getTotal());
+    }
+
+    @Test
+    void destroy_ShouldNotLeaveFilesForSessionsThatEnd() throws Exception {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ofHours(1), SPILL_TTL);
+        store.withBasket("session-1", basketItems -> basketItems.add(UUID.randomUUID(), 1000));
+
+        store.destroy();
+
+        assertEquals(0, spillFileCount());
+    }
+
+    @Test
+    void constructor_ShouldDeleteFilesLeftByPreviousRun() throws Exception {
+        TieredBasketStore previousRun = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+        previousRun.withBasket("session-1", basketItems -> basketItems.add(UUID.randomUUID(), 1000));
+        previousRun.evictIdleBaskets();
+        Files.writeString(spillDirectory.resolve("basket123.tmp"), "half-written");
+        Files.writeString(spillDirectory.resolve("notes.txt"), "keep");
+        assertEquals(2, spillFileCount());
+
+        TieredBasketStore restarted = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+
+        assertEquals(0, spillFileCount());
+        assertTrue(Files.exists(spillDirectory.resolve("notes.txt")));
+        assertEquals(0, (int) restarted.withBasket("session-1", BasketTable::size));
+    }
+
+    @Test
+    void evictIdleBaskets_ShouldDeleteSpillFilesOlderThanTtl() throws Exception {
+        TieredBasketStore store = new TieredBasketStore(spillDirectory, Duration.ZERO, SPILL_TTL);
+        store.withBasket("expired", basketItems -> basketItems.add(UUID.randomUUID(), 1000));
+        store.withBasket("recent", basketItems -> basketItems.add(UUID.randomUUID(), 1000));
+        store.evictIdleBaskets();
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            Path expired = files.filter(file -> file.getFileName().toString().startsWith(encode("expired")))
+                    .findFirst()
+                    .orElseThrow();
+            Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(SPILL_TTL).minusSeconds(60)));
+        }
+
+        store.evictIdleBaskets();
+
+        assertEquals(1, spillFileCount());
+        assertEquals(0, (int) store.withBasket("expired", BasketTable::size));
+        assertEquals(1, (int) store.withBasket("recent", BasketTable::size));
+    }
+
+    private long spillFileCount() throws Exception {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.filter(file -> !file.getFileName().toString().equals("notes.txt")).count();
+        }
+    }
+
+    private static String encode(String basketKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(basketKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}